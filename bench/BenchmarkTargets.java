@@ -0,0 +1,112 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Entry points of the analyzer for the benchmarks in package benchmarks.
+ * JMH does not allow benchmarks in the default package and classes of the default package cannot be imported,
+ * so the benchmarks look up these functions once by reflection and then call them directly.
+ */
+public class BenchmarkTargets {
+    private static final Pattern SUBROUTINE_DEC = Pattern.compile("(?m)^\\s*(constructor|function|method)\\b");
+
+    /**
+     * @returns a function that tokenizes Jack source code and returns the number of tokens.
+     */
+    public static ToLongFunction<String> tokenizer() {
+        return source -> {
+            try {
+                JackTokenizer tokenizer = new JackTokenizer(new StringReader(source));
+                long tokens = 0;
+                while (tokenizer.hasMoreTokens()) {
+                    tokenizer.advance();
+                    tokens++;
+                }
+                return tokens;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * @returns a function that tokenizes and parses Jack source code with CompilationEngine.compileClass()
+     * and returns the number of characters of the parsing tree.
+     */
+    public static ToLongFunction<String> parser() {
+        return source -> {
+            try {
+                CountingWriter output = new CountingWriter();
+                JackTokenizer tokenizer = new JackTokenizer(new StringReader(source));
+                CompilationEngine compilationEngine = new CompilationEngine(tokenizer, output);
+                compilationEngine.compileClass();
+                return output.count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * @returns a function that runs the complete analyzer on a .jack file, including nameT.xml and name.xml,
+     * and returns the number of errors.
+     */
+    public static ToLongFunction<File> analyzer(File outputDirectory) {
+        return jackFile -> {
+            String className = jackFile.getName().substring(0, jackFile.getName().length() - 5);
+            String fileName = new File(outputDirectory, className).getPath();
+            return JackAnalyzer.analyze(jackFile, fileName, new AnalyzerOptions()).getErrorCount();
+        };
+    }
+
+    /**
+     * Makes a larger class out of a Jack class by repeating its subroutine declarations.
+     * The class variable declarations are kept once, so the result is still a valid class.
+     *
+     * @returns the class with its subroutines repeated the given number of times.
+     */
+    public static String scale(String source, int times) {
+        Matcher firstSubroutine = SUBROUTINE_DEC.matcher(source);
+        if (!firstSubroutine.find()) {
+            return source;
+        }
+        int subroutinesStart = firstSubroutine.start();
+        int subroutinesEnd = source.lastIndexOf('}');
+        StringBuilder scaled = new StringBuilder(source.substring(0, subroutinesStart));
+        String subroutines = source.substring(subroutinesStart, subroutinesEnd);
+        for (int i = 0; i < times; i++) {
+            scaled.append(subroutines);
+        }
+        return scaled.append(source.substring(subroutinesEnd)).toString();
+    }
+
+    /**
+     * Writer that drops its output and only counts the characters.
+     */
+    private static class CountingWriter extends Writer {
+        long count;
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String string) {
+            count += string.length();
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
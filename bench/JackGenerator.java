@@ -0,0 +1,339 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Generates grammatically valid Jack classes of any size for benchmarks and scaling checks.
+ * The same seed and settings always generate the same classes.
+ * <p>
+ * Usage: JackGenerator outputDirectory [classes] [subroutines] [statements] [expressionDepth] [stringLength] [commentDensity]
+ */
+public class JackGenerator {
+    private static final char[] OPS = {'+', '-', '*', '/', '&', '|', '<', '>', '='};
+    private static final String[] KEYWORD_CONSTANTS = {"true", "false", "null", "this"};
+    private static final String[] LOCALS = {"i", "j", "k"};
+
+    private final Random random;
+    private int classes;
+    private int subroutines;
+    private int statements;
+    private int expressionDepth;
+    private int stringLength;
+    private double commentDensity;
+
+    /**
+     * Creates a generator for one class with 10 subroutines of 20 statements each.
+     *
+     * @param seed seed of the random choices
+     */
+    public JackGenerator(long seed) {
+        random = new Random(seed);
+        classes = 1;
+        subroutines = 10;
+        statements = 20;
+        expressionDepth = 3;
+        stringLength = 10;
+        commentDensity = 0.1;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: JackGenerator outputDirectory [classes] [subroutines] [statements] [expressionDepth] [stringLength] [commentDensity]");
+            return;
+        }
+        JackGenerator generator = new JackGenerator(42);
+        if (args.length > 1) {
+            generator.setClasses(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            generator.setSubroutines(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            generator.setStatements(Integer.parseInt(args[3]));
+        }
+        if (args.length > 4) {
+            generator.setExpressionDepth(Integer.parseInt(args[4]));
+        }
+        if (args.length > 5) {
+            generator.setStringLength(Integer.parseInt(args[5]));
+        }
+        if (args.length > 6) {
+            generator.setCommentDensity(Double.parseDouble(args[6]));
+        }
+
+        File outputDirectory = new File(args[0]);
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Could not create directory " + outputDirectory);
+        }
+        for (int i = 0; i < generator.classes; i++) {
+            try (FileWriter output = new FileWriter(new File(outputDirectory, className(i) + ".jack"))) {
+                output.write(generator.generateClass(i));
+            }
+        }
+        System.out.println("Generated " + generator.classes + " classes in '" + outputDirectory + "'");
+    }
+
+    /**
+     * @param classes number of classes, only used by main()
+     */
+    public JackGenerator setClasses(int classes) {
+        this.classes = classes;
+        return this;
+    }
+
+    /**
+     * @param subroutines number of subroutines per class
+     */
+    public JackGenerator setSubroutines(int subroutines) {
+        this.subroutines = subroutines;
+        return this;
+    }
+
+    /**
+     * @param statements number of statements per subroutine, not counting nested statements
+     */
+    public JackGenerator setStatements(int statements) {
+        this.statements = statements;
+        return this;
+    }
+
+    /**
+     * @param expressionDepth nesting depth of the expressions
+     */
+    public JackGenerator setExpressionDepth(int expressionDepth) {
+        this.expressionDepth = expressionDepth;
+        return this;
+    }
+
+    /**
+     * @param stringLength length of the string constants
+     */
+    public JackGenerator setStringLength(int stringLength) {
+        this.stringLength = stringLength;
+        return this;
+    }
+
+    /**
+     * @param commentDensity probability of a comment before each declaration and statement, between 0 and 1
+     */
+    public JackGenerator setCommentDensity(double commentDensity) {
+        this.commentDensity = commentDensity;
+        return this;
+    }
+
+    /**
+     * @returns the name of the class with the given number.
+     */
+    public static String className(int number) {
+        return "Generated" + number;
+    }
+
+    /**
+     * @returns the source code of the class with the given number.
+     */
+    public String generateClass(int number) {
+        StringBuilder source = new StringBuilder();
+        comment(source, "");
+        source.append("class ").append(className(number)).append(" {\n");
+        comment(source, "    ");
+        source.append("    field int x, y;\n");
+        source.append("    static boolean flag;\n\n");
+
+        for (int i = 0; i < subroutines; i++) {
+            generateSubroutine(source, number, i);
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * Appends a subroutine. Grammar subroutineDec: (method | function | constructor) (void | type) subroutineName '(' parameterList ')' subroutineBody
+     */
+    private void generateSubroutine(StringBuilder source, int classNumber, int number) {
+        comment(source, "    ");
+        boolean isVoid = random.nextBoolean();
+        source.append(random.nextBoolean() ? "    method " : "    function ");
+        source.append(isVoid ? "void" : "int").append(" sub").append(number).append("(int a, char b, Array c) {\n");
+        source.append("        var int i, j, k;\n");
+        source.append("        var Array arr;\n");
+        source.append("        var String s;\n");
+
+        for (int i = 0; i < statements; i++) {
+            generateStatement(source, classNumber, 2, 2);
+        }
+
+        comment(source, "        ");
+        if (isVoid) {
+            source.append("        return;\n");
+        } else {
+            source.append("        return ");
+            generateExpression(source, classNumber, expressionDepth);
+            source.append(";\n");
+        }
+        source.append("    }\n\n");
+    }
+
+    /**
+     * Appends a let, do, if or while statement. Statements are nested up to the given depth.
+     */
+    private void generateStatement(StringBuilder source, int classNumber, int indent, int nesting) {
+        StringBuilder indentation = new StringBuilder();
+        for (int i = 0; i < indent; i++) {
+            indentation.append("    ");
+        }
+        String spaces = indentation.toString();
+        comment(source, spaces);
+        int kind = random.nextInt(nesting > 0 ? 6 : 4);
+        switch (kind) {
+            case 0:
+                source.append(spaces).append("let ").append(LOCALS[random.nextInt(LOCALS.length)]).append(" = ");
+                generateExpression(source, classNumber, expressionDepth);
+                source.append(";\n");
+                break;
+            case 1:
+                source.append(spaces).append("let arr[");
+                generateExpression(source, classNumber, 1);
+                source.append("] = ");
+                generateExpression(source, classNumber, expressionDepth);
+                source.append(";\n");
+                break;
+            case 2:
+                source.append(spaces).append("let s = ");
+                generateString(source);
+                source.append(";\n");
+                break;
+            case 3:
+                source.append(spaces).append("do ");
+                generateCall(source, classNumber, 1);
+                source.append(";\n");
+                break;
+            case 4:
+                source.append(spaces).append("if (");
+                generateExpression(source, classNumber, expressionDepth);
+                source.append(") {\n");
+                generateStatement(source, classNumber, indent + 1, nesting - 1);
+                source.append(spaces).append("} else {\n");
+                generateStatement(source, classNumber, indent + 1, nesting - 1);
+                source.append(spaces).append("}\n");
+                break;
+            default:
+                source.append(spaces).append("while (");
+                generateExpression(source, classNumber, expressionDepth);
+                source.append(") {\n");
+                generateStatement(source, classNumber, indent + 1, nesting - 1);
+                source.append(spaces).append("}\n");
+                break;
+        }
+    }
+
+    /**
+     * Appends an expression nested up to the given depth. Grammar expression: term (op term)*
+     * Each nested level is followed by up to two further operators, so that chains like 'a + b * c' are parsed too.
+     */
+    private void generateExpression(StringBuilder source, int classNumber, int depth) {
+        if (depth <= 0) {
+            generateTerm(source, classNumber);
+            return;
+        }
+        switch (random.nextInt(3)) {
+            case 0:
+                // term op '(' expression ')'
+                generateTerm(source, classNumber);
+                source.append(' ').append(OPS[random.nextInt(OPS.length)]).append(" (");
+                generateExpression(source, classNumber, depth - 1);
+                source.append(')');
+                break;
+            case 1:
+                // unaryOp '(' expression ')'
+                source.append(random.nextBoolean() ? "-(" : "~(");
+                generateExpression(source, classNumber, depth - 1);
+                source.append(')');
+                break;
+            default:
+                // '(' expression ')' op term
+                source.append('(');
+                generateExpression(source, classNumber, depth - 1);
+                source.append(") ").append(OPS[random.nextInt(OPS.length)]).append(' ');
+                generateTerm(source, classNumber);
+                break;
+        }
+        int operators = random.nextInt(3);
+        for (int i = 0; i < operators; i++) {
+            // (op term)*
+            source.append(' ').append(OPS[random.nextInt(OPS.length)]).append(' ');
+            generateTerm(source, classNumber);
+        }
+    }
+
+    /**
+     * Appends a term without nested expressions, except for array indices and call arguments.
+     */
+    private void generateTerm(StringBuilder source, int classNumber) {
+        switch (random.nextInt(6)) {
+            case 0:
+                source.append(random.nextInt(32768));
+                break;
+            case 1:
+                source.append(KEYWORD_CONSTANTS[random.nextInt(KEYWORD_CONSTANTS.length)]);
+                break;
+            case 2:
+                source.append(LOCALS[random.nextInt(LOCALS.length)]);
+                break;
+            case 3:
+                source.append("arr[").append(LOCALS[random.nextInt(LOCALS.length)]).append(']');
+                break;
+            case 4:
+                generateCall(source, classNumber, 0);
+                break;
+            default:
+                source.append(random.nextBoolean() ? "x" : "a");
+                break;
+        }
+    }
+
+    /**
+     * Appends a subroutine call with arguments nested up to the given depth.
+     */
+    private void generateCall(StringBuilder source, int classNumber, int depth) {
+        if (random.nextBoolean()) {
+            source.append(className(classNumber)).append('.');
+        }
+        source.append("sub").append(random.nextInt(Math.max(1, subroutines))).append('(');
+        int arguments = random.nextInt(3);
+        for (int i = 0; i < arguments; i++) {
+            if (i > 0) {
+                source.append(", ");
+            }
+            generateExpression(source, classNumber, depth);
+        }
+        source.append(')');
+    }
+
+    /**
+     * Appends a string constant of the configured length.
+     */
+    private void generateString(StringBuilder source) {
+        source.append('"');
+        for (int i = 0; i < stringLength; i++) {
+            source.append((char) ('a' + random.nextInt(26)));
+        }
+        source.append('"');
+    }
+
+    /**
+     * Appends a line or block comment with the probability given by the comment density.
+     */
+    private void comment(StringBuilder source, String spaces) {
+        if (random.nextDouble() >= commentDensity) {
+            return;
+        }
+        if (random.nextBoolean()) {
+            source.append(spaces).append("// generated comment, let x = 1; do f();\n");
+        } else {
+            source.append(spaces).append("/** generated comment\n");
+            source.append(spaces).append(" * over several lines with \"quotes\" and symbols { } ( ) ;\n");
+            source.append(spaces).append(" */\n");
+        }
+    }
+}
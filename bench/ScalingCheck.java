@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Runs JackTokenizer and CompilationEngine on generated classes of growing size and fails if the time or the
+ * allocated memory per input character grows with the size, i.e. if the analyzer is not linear.
+ * Each dimension of the generator is scaled separately by factors 1, 2, 4 and 8.
+ * <p>
+ * Exits with status 1 if a check fails or a generated class has syntax errors.
+ */
+public class ScalingCheck {
+    private static final int[] FACTORS = {1, 2, 4, 8};
+    private static final int REPETITIONS = 7;
+
+    /**
+     * Maximal growth of time and allocation per character between the smallest and the largest input.
+     * A linear analyzer stays close to 1, a quadratic one reaches 8.
+     */
+    private static final double MAX_TIME_GROWTH = 3.0;
+    private static final double MAX_ALLOCATION_GROWTH = 1.5;
+
+    private final ToLongFunction<String> tokenizer = BenchmarkTargets.tokenizer();
+    private final ToLongFunction<String> parser = BenchmarkTargets.parser();
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private int failures = 0;
+
+    public static void main(String[] args) {
+        ScalingCheck check = new ScalingCheck();
+        check.warmUp();
+
+        check.checkDimension("subroutines", factor -> new JackGenerator(1).setSubroutines(50 * factor).generateClass(0));
+        check.checkDimension("statements", factor -> new JackGenerator(2).setStatements(100 * factor).generateClass(0));
+        check.checkDimension("expressionDepth", factor -> new JackGenerator(3).setStatements(50).setExpressionDepth(10 * factor).generateClass(0));
+        check.checkDimension("stringLength", factor -> new JackGenerator(4).setStringLength(5000 * factor).generateClass(0));
+        check.checkDimension("commentDensity", factor -> new JackGenerator(5).setStatements(200).setCommentDensity(0.1 * factor).generateClass(0));
+
+        if (check.failures > 0) {
+            System.out.println("Scaling check failed in " + check.failures + " dimensions");
+            System.exit(1);
+        }
+        System.out.println("Scaling check completed");
+    }
+
+    /**
+     * Runs the parser on a medium sized class until the JIT compiler has compiled the hot paths.
+     */
+    private void warmUp() {
+        String source = new JackGenerator(0).setSubroutines(50).setStringLength(1000).setCommentDensity(0.3).generateClass(0);
+        for (int i = 0; i < 50; i++) {
+            parser.applyAsLong(source);
+        }
+    }
+
+    /**
+     * Measures all sizes of one dimension and compares the cost per character of the smallest and the largest input.
+     *
+     * @param dimension name of the dimension for the report
+     * @param classes   generates the class for a scaling factor
+     */
+    private void checkDimension(String dimension, IntFunction<String> classes) {
+        double[] nanosPerChar = new double[FACTORS.length];
+        double[] bytesPerChar = new double[FACTORS.length];
+
+        for (int i = 0; i < FACTORS.length; i++) {
+            String source = classes.apply(FACTORS[i]);
+            if (!isValid(source)) {
+                System.out.println(dimension + ": generated class with factor " + FACTORS[i] + " has syntax errors");
+                failures++;
+                return;
+            }
+            measure(source);  // warm-up
+            long[] costs = measure(source);
+            nanosPerChar[i] = (double) costs[0] / source.length();
+            bytesPerChar[i] = (double) costs[1] / source.length();
+            System.out.printf("%-16s x%d %10d chars %8.2f ns/char %8.2f bytes/char%n",
+                    dimension, FACTORS[i], source.length(), nanosPerChar[i], bytesPerChar[i]);
+        }
+
+        double timeGrowth = nanosPerChar[FACTORS.length - 1] / nanosPerChar[0];
+        double allocationGrowth = bytesPerChar[FACTORS.length - 1] / bytesPerChar[0];
+        if (timeGrowth > MAX_TIME_GROWTH || allocationGrowth > MAX_ALLOCATION_GROWTH) {
+            System.out.printf("%s: super-linear growth, time x%.2f, allocation x%.2f%n", dimension, timeGrowth, allocationGrowth);
+            failures++;
+        }
+    }
+
+    /**
+     * Runs the parser several times on the class.
+     *
+     * @returns the shortest time in nanoseconds and the smallest number of allocated bytes of one run.
+     */
+    private long[] measure(String source) {
+        long threadId = Thread.currentThread().getId();
+        long bestTime = Long.MAX_VALUE;
+        long bestAllocation = Long.MAX_VALUE;
+        for (int i = 0; i < REPETITIONS; i++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            parser.applyAsLong(source);
+            long time = System.nanoTime() - start;
+            long allocation = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            bestTime = Math.min(bestTime, time);
+            bestAllocation = Math.min(bestAllocation, allocation);
+        }
+        return new long[]{bestTime, bestAllocation};
+    }
+
+    /**
+     * @returns true if the class is tokenized and parsed without errors.
+     */
+    private boolean isValid(String source) {
+        try {
+            JackTokenizer jackTokenizer = new JackTokenizer(new StringReader(source));
+            CompilationEngine compilationEngine = new CompilationEngine(jackTokenizer, new StringWriter());
+            Diagnostics diagnostics = new Diagnostics(null);
+            jackTokenizer.setDiagnostics(diagnostics);
+            compilationEngine.setDiagnostics(diagnostics);
+            compilationEngine.compileClass();
+            return diagnostics.getErrorCount() == 0 && tokenizer.applyAsLong(source) > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Benchmarks of the tokenizer, the parser and the complete analyzer on the test programs.
+ * The scale parameter repeats the body of the class to get larger inputs.
+ * Tokens and bytes per second are reported as auxiliary counters, allocation rates with the gc profiler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalyzerBenchmark {
+
+    @Param({"Example/Main", "ArrayTest/Main", "ExpressionLessSquare/Square", "Square/Square", "Square/SquareGame"})
+    public String program;
+
+    @Param({"1", "100"})
+    public int scale;
+
+    private String source;
+    private long tokenCount;
+    private File jackFile;
+    private File outputDirectory;
+
+    private ToLongFunction<String> tokenizer;
+    private ToLongFunction<String> parser;
+    private ToLongFunction<File> analyzer;
+
+    /**
+     * Tokens and bytes processed, reported per second.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Throughput {
+        public long tokens;
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        Class<?> targets = Class.forName("BenchmarkTargets");
+        tokenizer = (ToLongFunction<String>) targets.getMethod("tokenizer").invoke(null);
+        parser = (ToLongFunction<String>) targets.getMethod("parser").invoke(null);
+
+        String original = new String(Files.readAllBytes(new File("test/" + program + ".jack").toPath()), StandardCharsets.UTF_8);
+        source = (String) targets.getMethod("scale", String.class, int.class).invoke(null, original, scale);
+        tokenCount = tokenizer.applyAsLong(source);
+
+        outputDirectory = Files.createTempDirectory("jack-benchmark").toFile();
+        jackFile = new File(outputDirectory, new File(program).getName() + ".jack");
+        Files.write(jackFile.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        analyzer = (ToLongFunction<File>) targets.getMethod("analyzer", File.class).invoke(null, outputDirectory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.walk(outputDirectory.toPath())
+                .sorted(Comparator.reverseOrder())
+                .map(java.nio.file.Path::toFile)
+                .forEach(File::delete);
+    }
+
+    /**
+     * JackTokenizer.advance() over the whole class.
+     */
+    @Benchmark
+    public long tokenize(Throughput throughput) {
+        throughput.tokens += tokenCount;
+        throughput.bytes += source.length();
+        return tokenizer.applyAsLong(source);
+    }
+
+    /**
+     * CompilationEngine.compileClass() including the tokenizer, without file output.
+     */
+    @Benchmark
+    public long parse(Throughput throughput) {
+        throughput.tokens += tokenCount;
+        throughput.bytes += source.length();
+        return parser.applyAsLong(source);
+    }
+
+    /**
+     * JackAnalyzer.analyze() including reading the .jack file and writing nameT.xml and name.xml.
+     */
+    @Benchmark
+    public long analyze(Throughput throughput) {
+        throughput.tokens += tokenCount;
+        throughput.bytes += source.length();
+        return analyzer.applyAsLong(jackFile);
+    }
+}
@@ -0,0 +1,31 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the gc profiler. Must be started in the project directory so that test/ is found.
+ * Arguments are passed on to JMH, e.g. 'AnalyzerBenchmark.tokenize -p scale=100'.
+ * <p>
+ * Without the IDE:
+ * javac -cp "lib/*" -d out src/*.java bench/*.java bench/benchmarks/*.java
+ * java -cp "out:lib/*" benchmarks.BenchmarkRunner
+ * where lib/ contains jmh-core, jmh-generator-annprocess, jopt-simple and commons-math3.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLineOptions);
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            options.include(AnalyzerBenchmark.class.getSimpleName());
+        }
+        options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,225 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which classes were analyzed without errors, so that unchanged classes can be skipped in the next run.
+ * <p>
+ * A class is unchanged if the SHA-256 hash of its source code, the analyzer version and the output settings is the
+ * same as in the last run, and its output files still have the length and modification time written by that run.
+ * The cache is stored as a properties file. Entries of deleted .jack files are removed when it is saved.
+ */
+public class AnalysisCache {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final File cacheFile;
+    private final Map<String, Entry> entries;
+
+    /**
+     * Reads the cache file. A missing or unreadable cache file results in an empty cache.
+     *
+     * @param cacheFile properties file of the cache
+     */
+    public AnalysisCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+        entries = new ConcurrentHashMap<>();
+
+        if (cacheFile.isFile()) {
+            Properties properties = new Properties();
+            try (FileInputStream input = new FileInputStream(cacheFile)) {
+                properties.load(input);
+            } catch (IOException e) {
+                return;
+            }
+            for (String jackFile : properties.stringPropertyNames()) {
+                Entry entry = Entry.parse(properties.getProperty(jackFile));
+                if (entry != null) {
+                    entries.put(jackFile, entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * @returns the hash of the source code together with the analyzer version and the settings that change the output.
+     */
+    public static String hash(byte[] source, AnalyzerOptions options) {
+        return hash(ByteBuffer.wrap(source), options);
+    }
+
+    /**
+     * @returns the hash of the source code, from the position to the limit of the buffer, together with the analyzer version and the settings that change the output.
+     */
+    public static String hash(ByteBuffer source, AnalyzerOptions options) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update((JackAnalyzer.VERSION + "|" + options.isCheckOnly() + "|" + options.isWriteTokenFile() + "|" + options.getTokenFormat() + "|" + options.isIndent() + "|"
+                + options.getFormats() + "|")
+                .getBytes(StandardCharsets.UTF_8));
+        digest.update(source.duplicate());
+        byte[] hash = digest.digest();
+
+        char[] hex = new char[2 * hash.length];
+        for (int i = 0; i < hash.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX_DIGITS[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * @returns true if the class was analyzed without errors with the same hash and the output files were not changed since.
+     */
+    public boolean isUpToDate(File jackFile, String hash, String fileName) {
+        Entry entry = entries.get(key(jackFile));
+        if (entry == null || !entry.hash.equals(hash) || !entry.fileName.equals(fileName)) {
+            return false;
+        }
+        for (OutputFile outputFile : entry.outputFiles) {
+            if (!outputFile.matches(fileName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records a class that was analyzed without errors, together with the current state of its output files.
+     *
+     * @param options settings of the analyzer, they determine which output files were written
+     */
+    public void put(File jackFile, String hash, String fileName, AnalyzerOptions options) {
+        List<OutputFile> outputFiles = new ArrayList<>();
+        if (options.isWriteTokenFile()) {
+            outputFiles.add(OutputFile.of(fileName, options.getTokenFormat().suffix()));
+        }
+        for (OutputFormat format : options.getFormats()) {
+            outputFiles.add(OutputFile.of(fileName, format.extension()));
+        }
+        entries.put(key(jackFile), new Entry(hash, fileName, outputFiles));
+    }
+
+    /**
+     * Forgets a class, e.g. because it has errors.
+     */
+    public void remove(File jackFile) {
+        entries.remove(key(jackFile));
+    }
+
+    /**
+     * Removes the entries of deleted .jack files and writes the cache file.
+     */
+    public void save() throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (new File(entry.getKey()).isFile()) {
+                properties.setProperty(entry.getKey(), entry.getValue().toString());
+            }
+        }
+
+        File directory = cacheFile.getAbsoluteFile().getParentFile();
+        File temporaryFile = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+        try (FileOutputStream output = new FileOutputStream(temporaryFile)) {
+            properties.store(output, "Jack Syntax Analyzer " + JackAnalyzer.VERSION);
+        }
+        Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String key(File jackFile) {
+        return jackFile.getAbsolutePath();
+    }
+
+    /**
+     * Cached state of one class.
+     */
+    private static class Entry {
+        final String hash;
+        final String fileName;
+        final List<OutputFile> outputFiles;
+
+        Entry(String hash, String fileName, List<OutputFile> outputFiles) {
+            this.hash = hash;
+            this.fileName = fileName;
+            this.outputFiles = outputFiles;
+        }
+
+        /**
+         * @returns the entry written by toString(), or null if the text is not a valid entry.
+         */
+        static Entry parse(String text) {
+            String[] head = text.split("\\|", 3);
+            if (head.length != 3) {
+                return null;
+            }
+            try {
+                int count = Integer.parseInt(head[1]);
+                String[] parts = head[2].split("\\|", 3 * count + 1);
+                if (count < 0 || parts.length != 3 * count + 1) {
+                    return null;
+                }
+                List<OutputFile> outputFiles = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    outputFiles.add(new OutputFile(parts[3 * i], Long.parseLong(parts[3 * i + 1]), Long.parseLong(parts[3 * i + 2])));
+                }
+                return new Entry(head[0], parts[3 * count], outputFiles);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * @returns hash|number of output files|suffix|length|modification time of each output file|fileName
+         */
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(hash).append('|').append(outputFiles.size()).append('|');
+            for (OutputFile outputFile : outputFiles) {
+                text.append(outputFile.suffix).append('|').append(outputFile.length).append('|')
+                        .append(outputFile.lastModified).append('|');
+            }
+            return text.append(fileName).toString();
+        }
+    }
+
+    /**
+     * Suffix, length and modification time of an output file. The suffix is appended to the file name of the class.
+     */
+    private static class OutputFile {
+        final String suffix;
+        final long length;
+        final long lastModified;
+
+        OutputFile(String suffix, long length, long lastModified) {
+            this.suffix = suffix;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        static OutputFile of(String fileName, String suffix) {
+            File file = new File(fileName + suffix);
+            return new OutputFile(suffix, file.length(), file.lastModified());
+        }
+
+        boolean matches(String fileName) {
+            File file = new File(fileName + suffix);
+            return file.isFile() && file.length() == length && file.lastModified() == lastModified;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one phase of the analysis of a class, e.g. tokenizing. The duration of the event is
+ * the time of the phase. Record with -XX:StartFlightRecording and print with 'jfr print --events jack.AnalysisPhase'.
+ * <p>
+ * Bytes are the bytes read by the READ phase and written by the WRITE phase, tokens and nodes are the numbers
+ * known at the end of the phase.
+ */
+@Name("jack.AnalysisPhase")
+@Label("Analysis Phase")
+@Category("Jack Analyzer")
+@Description("One phase of the analysis of a Jack class")
+public class AnalysisPhaseEvent extends jdk.jfr.Event {
+    @Label("File")
+    String file;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Tokens")
+    int tokens;
+
+    @Label("Nodes")
+    int nodes;
+}
@@ -0,0 +1,314 @@
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Analyzes classes in four stages that run at the same time on different classes:
+ * reading the .jack file, tokenizing, parsing and writing the output files.
+ * <p>
+ * The stages are connected by small bounded queues. A stage that is faster than the next one waits until the
+ * next stage has taken a class, so that not more than a few classes are in memory at once. Reading and writing
+ * files overlaps with tokenizing and parsing, which helps if the files are on a slow or remote file system.
+ * <p>
+ * Every class passes all stages in the order of the files, so the results have the same order as the files.
+ * The lexical errors found by the tokenizing stage are reported by the parsing stage in the order of the source
+ * code, and the token file ends at the same token as with JackAnalyzer.analyze, see TokenBuffer.replay.
+ * <p>
+ * The time of each stage is added to the ClassMetrics of the class and reported as AnalysisPhaseEvent to the
+ * flight recorder. The ClassAnalysisEvent of a class also includes the time it waited in the queues.
+ */
+public class AnalysisPipeline {
+    private static final int QUEUE_CAPACITY = 4;
+
+    /**
+     * Marks the end of the classes in a queue.
+     */
+    private static final Job END = new Job(null, null);
+
+    private final AnalyzerOptions options;
+
+    private AnalysisPipeline(AnalyzerOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Analyzes the classes in a pipeline. The reading, tokenizing and parsing stages run on their own threads,
+     * the writing stage runs on the current thread.
+     *
+     * @param jackFiles .jack files with source code
+     * @param fileNames output paths without extension, one per .jack file
+     * @param options   settings of the analyzer
+     * @returns the results in the same order as the given files.
+     */
+    public static List<AnalysisResult> analyzeAll(List<File> jackFiles, List<String> fileNames, AnalyzerOptions options)
+            throws InterruptedException {
+        AnalysisPipeline pipeline = new AnalysisPipeline(options);
+        BlockingQueue<Job> read = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<Job> tokenized = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<Job> parsed = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> stages = new ArrayList<>();
+            stages.add(executor.submit(() -> {
+                try {
+                    for (int i = 0; i < jackFiles.size(); i++) {
+                        Job job = new Job(jackFiles.get(i), fileNames.get(i));
+                        pipeline.run(job, ClassMetrics.Phase.READ, pipeline::read);
+                        read.put(job);
+                    }
+                } finally {
+                    read.put(END);
+                }
+                return null;
+            }));
+            stages.add(executor.submit(() -> pipeline.stage(read, tokenized, ClassMetrics.Phase.TOKENIZE, pipeline::tokenize)));
+            stages.add(executor.submit(() -> pipeline.stage(tokenized, parsed, ClassMetrics.Phase.PARSE, pipeline::parse)));
+
+            List<AnalysisResult> results = new ArrayList<>();
+            for (Job job = parsed.take(); job != END; job = parsed.take()) {
+                pipeline.run(job, ClassMetrics.Phase.WRITE, pipeline::write);
+                pipeline.finish(job);
+                results.add(job.result);
+            }
+
+            for (Future<?> stage : stages) {
+                try {
+                    stage.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Analyzes one class by running the stages one after another on the current thread, so that the time of each
+     * phase can be measured. Used by JackAnalyzer.analyze when metrics are collected. The errors, the output files
+     * and the log are the same as those of the default path.
+     *
+     * @param jackFile .jack file with source code
+     * @param fileName output path without extension
+     * @param options  settings of the analyzer
+     */
+    static AnalysisResult analyze(File jackFile, String fileName, AnalyzerOptions options) {
+        AnalysisPipeline pipeline = new AnalysisPipeline(options);
+        Job job = new Job(jackFile, fileName);
+        pipeline.run(job, ClassMetrics.Phase.READ, pipeline::read);
+        pipeline.run(job, ClassMetrics.Phase.TOKENIZE, pipeline::tokenize);
+        pipeline.run(job, ClassMetrics.Phase.PARSE, pipeline::parse);
+        pipeline.run(job, ClassMetrics.Phase.WRITE, pipeline::write);
+        pipeline.finish(job);
+        return job.result;
+    }
+
+    /**
+     * Takes the classes from the input queue, processes them and puts them into the output queue.
+     * The end of the classes is passed on also if the stage fails, so that the next stages do not wait forever.
+     */
+    private Void stage(BlockingQueue<Job> input, BlockingQueue<Job> output, ClassMetrics.Phase phase, Step step) throws InterruptedException {
+        try {
+            for (Job job = input.take(); job != END; job = input.take()) {
+                run(job, phase, step);
+                output.put(job);
+            }
+        } finally {
+            output.put(END);
+        }
+        return null;
+    }
+
+    /**
+     * Runs a step on a class, unless the class was skipped or an earlier step failed.
+     * A failing step is reported in the result of the class, the other classes are analyzed anyway. This includes
+     * errors like a StackOverflowError, because the stages must keep passing the classes on.
+     * The time of the step is added to the metrics of the class.
+     */
+    private void run(Job job, ClassMetrics.Phase phase, Step step) {
+        if (job.skipped || job.failed) {
+            return;
+        }
+        AnalysisPhaseEvent event = new AnalysisPhaseEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            step.process(job);
+        } catch (IOException | RuntimeException | Error e) {
+            job.failed = true;
+            job.result.addFailure(e);
+        }
+        ClassMetrics metrics = job.result.getMetrics();
+        metrics.addNanos(phase, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = job.fileName;
+            event.phase = phase.name();
+            event.bytes = phase == ClassMetrics.Phase.READ ? metrics.getBytesIn() : phase == ClassMetrics.Phase.WRITE ? metrics.getBytesOut() : 0;
+            event.tokens = metrics.getTokens();
+            event.nodes = metrics.getNodes();
+            event.commit();
+        }
+    }
+
+    /**
+     * Reads the source code. With a cache, unchanged classes are skipped.
+     */
+    private void read(Job job) throws IOException {
+        job.source = Files.readAllBytes(job.jackFile.toPath());
+        job.result.getMetrics().setBytesIn(job.source.length);
+        AnalysisCache cache = options.getCache();
+        if (cache != null) {
+            job.hash = AnalysisCache.hash(job.source, options);
+            if (JackAnalyzer.isUpToDate(job.jackFile, job.hash, job.fileName, options)) {
+                job.result.getLog().println("Skipped unchanged class '" + job.fileName + "'");
+                job.skipped = true;
+            }
+        }
+    }
+
+    private void tokenize(Job job) throws IOException {
+        job.diagnostics = new Diagnostics(job.jackFile.getPath(), Diagnostics.DEFAULT_CAPACITY, options.getMaxErrors());
+        JackTokenizer jackTokenizer = ParserPool.current().tokenizer(new InputStreamReader(new ByteArrayInputStream(job.source)), null);
+        jackTokenizer.setDiagnostics(job.diagnostics);
+        job.tokens = TokenBuffer.tokenize(jackTokenizer);
+        jackTokenizer.close();
+        job.result.getMetrics().setTokens(job.tokens.size());
+        job.source = null;
+    }
+
+    private void parse(Job job) throws IOException {
+        ParseListener listener = NullListener.INSTANCE;
+        if (!options.isCheckOnly()) {
+            job.tree = new ParseTree();
+            listener = job.tree;
+        }
+        IndexBuilder indexBuilder = null;
+        if (options.getIndex() != null) {
+            indexBuilder = new IndexBuilder(job.jackFile);
+            listener = JackAnalyzer.addListener(listener, indexBuilder);
+        }
+        // the token file is written later, the cursor only counts the tokens that belong into it
+        TokenBuffer.Cursor cursor = job.tokens.replay(job.diagnostics, options.isWriteTokenFile() ? NullListener.INSTANCE : null);
+        CompilationEngine compilationEngine = options.isParallelParsing() && indexBuilder == null
+                ? new ParallelCompilationEngine(job.tokens, cursor, listener, ForkJoinPool.commonPool())
+                : ParserPool.current().engine(cursor, listener);
+        compilationEngine.setDiagnostics(job.diagnostics);
+        compilationEngine.compileClass();
+        cursor.close();
+        job.tokenCount = cursor.index() + 1;
+        if (job.tree != null) {
+            job.result.getMetrics().setNodes(job.tree.size());
+        }
+        if (indexBuilder != null) {
+            job.classIndex = indexBuilder.getClassIndex();
+        }
+    }
+
+    /**
+     * Writes the token file and the parsing tree in all formats of the options.
+     * The size of the written files is added to the metrics of the class.
+     */
+    private void write(Job job) throws IOException {
+        if (options.isCheckOnly()) {
+            return;
+        }
+        ClassMetrics metrics = job.result.getMetrics();
+        if (options.isWriteTokenFile()) {
+            TokenFileFormat format = options.getTokenFormat();
+            TokenFileConverter.copy(job.tokens.cursor(0, job.tokenCount), format.createWriter(job.fileName + format.suffix()));
+            metrics.addBytesOut(new File(job.fileName + format.suffix()).length());
+        }
+        ParseListener listener = JackAnalyzer.createListener(job.fileName, options);
+        job.tree.write(listener);
+        listener.close();
+        for (OutputFormat format : options.getFormats()) {
+            metrics.addBytesOut(new File(job.fileName + format.extension()).length());
+        }
+        job.tokens = null;
+        job.tree = null;
+    }
+
+    /**
+     * Reports the errors of the class, updates the cache and the index and reports the analyzed class to the flight
+     * recorder. The errors are only reported after all output files were written, so that the log is the same as
+     * the log of JackAnalyzer.analyze, also if writing fails.
+     */
+    private void finish(Job job) {
+        if (!job.skipped && !job.failed) {
+            job.diagnostics.print(job.result.getLog());
+            job.result.addErrors(job.diagnostics.getErrorCount());
+            job.result.getLog().println("Tokenizer completed class '" + job.fileName + "'");
+            job.result.getLog().println("Parser completed class '" + job.fileName + "'");
+        }
+        AnalysisCache cache = options.getCache();
+        if (cache != null && !job.skipped) {
+            if (job.result.isSuccessful()) {
+                cache.put(job.jackFile, job.hash, job.fileName, options);
+            } else {
+                cache.remove(job.jackFile);
+            }
+        }
+        JackIndex index = options.getIndex();
+        if (index != null && !job.skipped) {
+            if (job.classIndex != null) {
+                index.put(job.classIndex);
+            } else {
+                index.remove(job.jackFile);
+            }
+        }
+        if (!job.skipped) {
+            ClassAnalysisEvent.commit(job.event, job.result);
+        }
+    }
+
+    /**
+     * One step of the analysis of a class.
+     */
+    private interface Step {
+        void process(Job job) throws IOException;
+    }
+
+    /**
+     * A class on its way through the pipeline. Each stage sets the fields for the next stage.
+     */
+    private static class Job {
+        final File jackFile;
+        final String fileName;
+        final AnalysisResult result;
+        boolean skipped;
+        boolean failed;
+
+        byte[] source;
+        String hash;
+        Diagnostics diagnostics;
+        TokenBuffer tokens;
+        int tokenCount;
+        ParseTree tree;
+        ClassIndex classIndex;
+        final ClassAnalysisEvent event;
+
+        Job(File jackFile, String fileName) {
+            this.jackFile = jackFile;
+            this.fileName = fileName;
+            result = new AnalysisResult(fileName);
+            event = new ClassAnalysisEvent();
+            event.begin();
+            skipped = false;
+            failed = false;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+/**
+ * Result of analyzing one class: the console messages, the number of errors and the metrics.
+ * The messages are collected in memory so that files analyzed in parallel can be reported in a fixed order.
+ */
+public class AnalysisResult {
+    private final String fileName;
+    private final ByteArrayOutputStream messages;
+    private final PrintStream log;
+    private int errorCount;
+    private final ClassMetrics metrics;
+
+    /**
+     * @param fileName output path of the class without extension
+     */
+    public AnalysisResult(String fileName) {
+        this.fileName = fileName;
+        messages = new ByteArrayOutputStream();
+        log = new PrintStream(messages, true);
+        errorCount = 0;
+        metrics = new ClassMetrics();
+    }
+
+    /**
+     * @returns the output path of the class without extension.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @returns the stream that collects the messages of this class.
+     */
+    public PrintStream getLog() {
+        return log;
+    }
+
+    /**
+     * @returns all messages of this class.
+     */
+    public String getMessages() {
+        return messages.toString();
+    }
+
+    /**
+     * Adds errors found while analyzing this class.
+     */
+    public void addErrors(int count) {
+        errorCount += count;
+    }
+
+    /**
+     * Records that the class could not be analyzed, e.g. because it could not be read or the analysis failed.
+     */
+    public void addFailure(Throwable cause) {
+        errorCount++;
+        log.println("Could not analyze class '" + fileName + "': " + (cause.getMessage() != null ? cause.getMessage() : cause));
+    }
+
+    /**
+     * @returns the number of errors found in this class.
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @returns true if no errors were found in this class.
+     */
+    public boolean isSuccessful() {
+        return errorCount == 0;
+    }
+
+    /**
+     * @returns the times and sizes measured while analyzing this class. The phases are measured separately
+     * only if the class was analyzed in stages, see AnalyzerOptions.isMetrics.
+     */
+    public ClassMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,279 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP server on the loopback interface that analyzes Jack classes for editors, linters and build tools, so that
+ * they share one warm JVM instead of starting the analyzer for every file.
+ * <p>
+ * Requests:
+ * <pre>
+ *   POST /tokens?format=xml|binary              token file of the class in the body
+ *   POST /tree?format=xml|json|sexp|binary      parsing tree of the class in the body
+ *   POST /check                                 syntax errors of the class in the body, one per line
+ * </pre>
+ * Instead of sending the source code in the body, a request can name a .jack file with ?path=, e.g.
+ * GET /check?path=Square/Main.jack. Source code in the body and text responses are UTF-8.
+ * The number of syntax errors is returned in the header X-Jack-Errors.
+ * <p>
+ * Each request is handled on its own virtual thread if the JVM has virtual threads, with its own JackTokenizer
+ * and CompilationEngine. At most maxRequests requests are analyzed at the same time, further requests wait.
+ */
+public class AnalysisServer implements AutoCloseable {
+    public static final String ERRORS_HEADER = "X-Jack-Errors";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final AnalyzerOptions options;
+
+    /**
+     * Binds the server to the port on the loopback interface. Call start() to accept requests.
+     *
+     * @param port        port number, or 0 for any free port
+     * @param maxRequests number of requests that are analyzed at the same time
+     * @param options     settings of the analyzer, e.g. indentation of xml and the error limit
+     */
+    public AnalysisServer(int port, int maxRequests, AnalyzerOptions options) throws IOException {
+        this.options = options;
+        permits = new Semaphore(maxRequests);
+        executor = newExecutor(maxRequests);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @returns the port of the server, useful if it was created with port 0.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and waits at most one second for the running requests.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * @returns an executor that starts a virtual thread per request, or a pool of maxRequests threads if the JVM has no
+     * virtual threads. Virtual threads are looked up by reflection, so that the analyzer still runs on Java 11.
+     */
+    private static ExecutorService newExecutor(int maxRequests) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(maxRequests);
+        }
+    }
+
+    /**
+     * Answers invalid requests with 400, missing files with 404 and failures of the analysis with 500.
+     * A failure after the status 200 was sent, e.g. while writing the body to a client that went away, only closes
+     * the exchange. The exchange is always closed.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> parameters;
+            try {
+                parameters = parameters(exchange.getRequestURI().getRawQuery());
+                checkFormat(exchange.getRequestURI().getPath(), parameters.get("format"));
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, e.getMessage());
+                return;
+            }
+
+            byte[] source;
+            String fileName = parameters.get("path");
+            if (fileName != null) {
+                if (!fileName.endsWith(".jack") || !new File(fileName).isFile()) {
+                    send(exchange, 404, "No .jack file '" + fileName + "'");
+                    return;
+                }
+                source = Files.readAllBytes(new File(fileName).toPath());
+            } else if (exchange.getRequestMethod().equals("POST")) {
+                source = exchange.getRequestBody().readAllBytes();
+            } else {
+                send(exchange, 400, "Send the source code with POST or name a .jack file with ?path=");
+                return;
+            }
+
+            permits.acquire();
+            try {
+                analyze(exchange, exchange.getRequestURI().getPath(), parameters.get("format"), fileName, source);
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, "Server is stopping");
+        } catch (IOException e) {
+            sendError(exchange, 500, "Could not analyze class: " + e.getMessage());
+        } catch (RuntimeException | Error e) {
+            sendError(exchange, 500, "Analysis failed: " + (e.getMessage() != null ? e.getMessage() : e));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Analyzes one class and sends the requested output.
+     *
+     * @param request  path of the request, e.g. /tree
+     * @param format   name of the output format, or null for xml
+     * @param fileName .jack file for the error messages, or null if the source code was sent in the body
+     */
+    private void analyze(HttpExchange exchange, String request, String format, String fileName, byte[] source) throws IOException {
+        Diagnostics diagnostics = new Diagnostics(fileName, Diagnostics.DEFAULT_CAPACITY, options.getMaxErrors());
+        Reader input = new InputStreamReader(new ByteArrayInputStream(source), StandardCharsets.UTF_8);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        String contentType;
+
+        switch (request) {
+            case "/tokens": {
+                TokenFileFormat tokenFormat = format(TokenFileFormat.class, format, TokenFileFormat.XML);
+                JackTokenizer jackTokenizer = new JackTokenizer(input, tokenFormat.createWriter(output));
+                jackTokenizer.setDiagnostics(diagnostics);
+                jackTokenizer.close();
+                contentType = tokenFormat == TokenFileFormat.BINARY ? "application/octet-stream" : "application/xml; charset=utf-8";
+                break;
+            }
+            case "/tree": {
+                OutputFormat outputFormat = format(OutputFormat.class, format, OutputFormat.XML);
+                parse(input, outputFormat.createListener(output, options), diagnostics);
+                contentType = contentType(outputFormat);
+                break;
+            }
+            case "/check": {
+                parse(input, NullListener.INSTANCE, diagnostics);
+                diagnostics.print(new PrintStream(output, true, "UTF-8"));
+                contentType = "text/plain; charset=utf-8";
+                break;
+            }
+            default:
+                send(exchange, 404, "Unknown request '" + request + "', use /tokens, /tree or /check");
+                return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set(ERRORS_HEADER, String.valueOf(diagnostics.getErrorCount()));
+        exchange.sendResponseHeaders(200, output.size() > 0 ? output.size() : -1);
+        try (OutputStream body = exchange.getResponseBody()) {
+            output.writeTo(body);
+        }
+    }
+
+    private static void parse(Reader input, ParseListener listener, Diagnostics diagnostics) throws IOException {
+        JackTokenizer jackTokenizer = new JackTokenizer(input);
+        jackTokenizer.setDiagnostics(diagnostics);
+        CompilationEngine compilationEngine = new CompilationEngine(jackTokenizer, listener);
+        compilationEngine.setDiagnostics(diagnostics);
+        compilationEngine.compileClass();
+        jackTokenizer.close();
+    }
+
+    private static String contentType(OutputFormat format) {
+        switch (format) {
+            case JSON:
+                return "application/json";
+            case BINARY:
+                return "application/octet-stream";
+            case SEXP:
+                return "text/plain; charset=utf-8";
+            default:
+                return "application/xml; charset=utf-8";
+        }
+    }
+
+    /**
+     * Checks the format parameter before the class is analyzed, so that a wrong format is reported as bad request.
+     *
+     * @throws IllegalArgumentException if the request has no format with this name
+     */
+    private static void checkFormat(String request, String format) {
+        if (request.equals("/tokens")) {
+            format(TokenFileFormat.class, format, TokenFileFormat.XML);
+        } else if (request.equals("/tree")) {
+            format(OutputFormat.class, format, OutputFormat.XML);
+        }
+    }
+
+    /**
+     * @returns the format with the given name, or the default format if no name is given.
+     * @throws IllegalArgumentException if there is no format with this name
+     */
+    private static <E extends Enum<E>> E format(Class<E> type, String name, E defaultFormat) {
+        if (name == null) {
+            return defaultFormat;
+        }
+        try {
+            return Enum.valueOf(type, name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown format '" + name + "'");
+        }
+    }
+
+    /**
+     * @returns the decoded parameters of the query string of a request.
+     */
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                String name = equals >= 0 ? parameter.substring(0, equals) : parameter;
+                String value = equals >= 0 ? parameter.substring(equals + 1) : "";
+                parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Sends an error message with the status code.
+     */
+    private static void send(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * Sends an error message with the status code, unless the response headers were already sent.
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() == -1) {
+            send(exchange, status, message);
+        }
+    }
+}
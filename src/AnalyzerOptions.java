@@ -0,0 +1,205 @@
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Settings of a JackAnalyzer run.
+ */
+public class AnalyzerOptions {
+    private boolean checkOnly;
+    private boolean writeTokenFile;
+    private TokenFileFormat tokenFormat;
+    private boolean indent;
+    private Set<OutputFormat> formats;
+    private int threads;
+    private int maxErrors;
+    private boolean parallelParsing;
+    private boolean pipeline;
+    private long mapThreshold;
+    private AnalysisCache cache;
+    private boolean metrics;
+    private JackIndex index;
+
+    /**
+     * Creates the default settings: nameT.xml and name.xml are written, the output is not indented,
+     * one worker thread is used per processor, source files of 1 MB or more are memory-mapped, there is no cache,
+     * no metrics are collected and no index is built.
+     */
+    public AnalyzerOptions() {
+        checkOnly = false;
+        writeTokenFile = true;
+        tokenFormat = TokenFileFormat.XML;
+        indent = false;
+        formats = EnumSet.of(OutputFormat.XML);
+        threads = Runtime.getRuntime().availableProcessors();
+        maxErrors = 0;
+        parallelParsing = false;
+        pipeline = false;
+        mapThreshold = 1 << 20;
+        cache = null;
+        metrics = false;
+        index = null;
+    }
+
+    /**
+     * @returns true if the syntax should only be checked, without writing any output files.
+     */
+    public boolean isCheckOnly() {
+        return checkOnly;
+    }
+
+    public AnalyzerOptions setCheckOnly(boolean checkOnly) {
+        this.checkOnly = checkOnly;
+        return this;
+    }
+
+    /**
+     * @returns true if the tokens should also be written to a token file. Always false when only checking.
+     */
+    public boolean isWriteTokenFile() {
+        return writeTokenFile && !checkOnly;
+    }
+
+    public AnalyzerOptions setWriteTokenFile(boolean writeTokenFile) {
+        this.writeTokenFile = writeTokenFile;
+        return this;
+    }
+
+    /**
+     * @returns the format of the token file, nameT.xml by default.
+     */
+    public TokenFileFormat getTokenFormat() {
+        return tokenFormat;
+    }
+
+    public AnalyzerOptions setTokenFormat(TokenFileFormat tokenFormat) {
+        this.tokenFormat = tokenFormat;
+        return this;
+    }
+
+    /**
+     * @returns true if the lines of name.xml should be indented by the depth of the parsing tree.
+     */
+    public boolean isIndent() {
+        return indent;
+    }
+
+    public AnalyzerOptions setIndent(boolean indent) {
+        this.indent = indent;
+        return this;
+    }
+
+    /**
+     * @returns the formats of the parsing tree. All formats are written in one pass of the parser.
+     * Empty when only checking.
+     */
+    public Set<OutputFormat> getFormats() {
+        return checkOnly ? EnumSet.noneOf(OutputFormat.class) : formats;
+    }
+
+    public AnalyzerOptions setFormats(Set<OutputFormat> formats) {
+        this.formats = EnumSet.copyOf(formats);
+        return this;
+    }
+
+    /**
+     * @returns the number of worker threads for analyzing several classes.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public AnalyzerOptions setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * @returns the number of errors after which the analysis of a class stops, 0 for no limit.
+     */
+    public int getMaxErrors() {
+        return maxErrors;
+    }
+
+    public AnalyzerOptions setMaxErrors(int maxErrors) {
+        this.maxErrors = maxErrors;
+        return this;
+    }
+
+    /**
+     * @returns true if the subroutines of large classes should be parsed in parallel, see ParallelCompilationEngine.
+     */
+    public boolean isParallelParsing() {
+        return parallelParsing;
+    }
+
+    public AnalyzerOptions setParallelParsing(boolean parallelParsing) {
+        this.parallelParsing = parallelParsing;
+        return this;
+    }
+
+    /**
+     * @returns true if reading, tokenizing, parsing and writing should run as concurrent stages, see AnalysisPipeline.
+     */
+    public boolean isPipeline() {
+        return pipeline;
+    }
+
+    public AnalyzerOptions setPipeline(boolean pipeline) {
+        this.pipeline = pipeline;
+        return this;
+    }
+
+    /**
+     * @returns the size in bytes from which .jack files are memory-mapped instead of read with a FileReader.
+     */
+    public long getMapThreshold() {
+        return mapThreshold;
+    }
+
+    /**
+     * @param mapThreshold size in bytes, 0 to map all files or Long.MAX_VALUE to map none
+     */
+    public AnalyzerOptions setMapThreshold(long mapThreshold) {
+        this.mapThreshold = mapThreshold;
+        return this;
+    }
+
+    /**
+     * @returns the cache of unchanged classes, or null if all classes should be analyzed.
+     */
+    public AnalysisCache getCache() {
+        return cache;
+    }
+
+    public AnalyzerOptions setCache(AnalysisCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * @returns true if the time of each phase of each class should be measured, see ClassMetrics.
+     * The phases of a class then run one after another instead of interleaved.
+     */
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    public AnalyzerOptions setMetrics(boolean metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * @returns the index that is updated with the declarations and calls of each analyzed class, or null if no index
+     * should be built. Classes are parsed sequentially while an index is built, also with parallel parsing, because
+     * the index needs the positions of the tokens.
+     */
+    public JackIndex getIndex() {
+        return index;
+    }
+
+    public AnalyzerOptions setIndex(JackIndex index) {
+        this.index = index;
+        return this;
+    }
+}
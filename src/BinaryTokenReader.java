@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads a token file written by BinaryTokenWriter. The tokens can be parsed by the CompilationEngine
+ * or written in another format with TokenFileConverter.
+ */
+public class BinaryTokenReader implements TokenSource {
+    private static final Keyword[] KEYWORDS = Keyword.values();
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private final byte[] data;
+    private final String[] strings;
+    private int position;
+    private int remainingTokens;
+
+    private TokenType currentType;
+    private int currentValue;
+
+    /**
+     * Reads the complete file and its string table.
+     *
+     * @param input stream of the binary token file
+     */
+    public BinaryTokenReader(InputStream input) throws IOException {
+        try (InputStream in = input) {
+            data = in.readAllBytes();
+        }
+        int magicLength = BinaryTokenWriter.MAGIC.length;
+        if (data.length < magicLength || !Arrays.equals(data, 0, magicLength, BinaryTokenWriter.MAGIC, 0, magicLength)) {
+            throw new IOException("Not a binary token file");
+        }
+        position = magicLength;
+
+        int stringCount = readVarint();
+        if (stringCount < 0 || stringCount > data.length - position) {
+            throw new IOException("Invalid number of strings " + stringCount);
+        }
+        strings = new String[stringCount];
+        for (int i = 0; i < strings.length; i++) {
+            int length = readVarint();
+            if (length < 0 || length > data.length - position) {
+                throw new IOException("Truncated binary token file");
+            }
+            strings[i] = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+        }
+        remainingTokens = readVarint();
+    }
+
+    @Override
+    public boolean hasMoreTokens() {
+        return remainingTokens > 0;
+    }
+
+    @Override
+    public void advance() throws IOException {
+        try {
+            int type = data[position++];
+            if (type < 0 || type >= TOKEN_TYPES.length) {
+                throw new IOException("Invalid token type " + type + " at byte " + (position - 1));
+            }
+            currentType = TOKEN_TYPES[type];
+            currentValue = readVarint();
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated binary token file");
+        }
+        int valueCount = currentType == TokenType.KEYWORD ? KEYWORDS.length
+                : currentType == TokenType.SYMBOL ? -1 : strings.length;
+        if (valueCount >= 0 && (currentValue < 0 || currentValue >= valueCount)) {
+            throw new IOException("Invalid value " + currentValue + " of " + currentType + " at byte " + (position - 1));
+        }
+        if (currentType == TokenType.INT_CONST && !JackTokenizer.isIntConst(strings[currentValue])) {
+            throw new IOException("Invalid integer constant '" + strings[currentValue] + "' at byte " + (position - 1));
+        }
+        remainingTokens--;
+    }
+
+    @Override
+    public TokenType tokenType() {
+        return currentType;
+    }
+
+    @Override
+    public Keyword keyWord() {
+        return KEYWORDS[currentValue];
+    }
+
+    @Override
+    public char symbol() {
+        return (char) currentValue;
+    }
+
+    @Override
+    public String identifier() {
+        return strings[currentValue];
+    }
+
+    @Override
+    public int intVal() {
+        return Math.min(JackTokenizer.intValue(strings[currentValue]), JackTokenizer.MAX_INT_CONST);
+    }
+
+    @Override
+    public String intText() {
+        return strings[currentValue];
+    }
+
+    @Override
+    public String stringVal() {
+        return strings[currentValue];
+    }
+
+    /**
+     * The file was read completely by the constructor, so there is nothing to close.
+     */
+    @Override
+    public void close() {
+    }
+
+    private int readVarint() throws IOException {
+        int[] next = {position};
+        int value = Varints.read(data, next);
+        position = next[0];
+        return value;
+    }
+}
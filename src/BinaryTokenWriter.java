@@ -0,0 +1,105 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes tokens in a compact binary format that can be read with BinaryTokenReader, as an alternative to nameT.xml.
+ * <p>
+ * The file consists of:
+ * - the 4 bytes 'J' 'T' 'K' 2
+ * - the number of strings as varint, followed by each string as length of its UTF-8 bytes as varint and the bytes
+ * - the number of tokens as varint, followed by each token as ordinal of its TokenType in one byte and a varint
+ *   value: the ordinal of the Keyword, the symbol character or the index in the string table
+ * Varints are encoded as described in Varints.
+ * Identifiers, integer and string constants are stored once in the string table, however often they occur.
+ * Integer constants are stored as written in the source code, e.g. '007'.
+ * <p>
+ * Rules are ignored, only the tokens are written. The file is built in memory, because the string table is only
+ * complete after the last token.
+ */
+public class BinaryTokenWriter implements ParseListener {
+    static final byte[] MAGIC = {'J', 'T', 'K', 2};
+
+    private final OutputStream output;
+    private final List<String> strings;
+    private final Map<String, Integer> stringIndices;
+    private byte[] tokens;
+    private int size;
+    private int tokenCount;
+
+    /**
+     * @param output stream of the binary token file
+     */
+    public BinaryTokenWriter(OutputStream output) {
+        this.output = output;
+        strings = new ArrayList<>();
+        stringIndices = new HashMap<>();
+        tokens = new byte[1 << 14];
+        size = 0;
+        tokenCount = 0;
+    }
+
+    @Override
+    public void open(NonTerminal rule) {
+    }
+
+    @Override
+    public void close(NonTerminal rule) {
+    }
+
+    @Override
+    public void keyword(Keyword keyword) {
+        writeToken(TokenType.KEYWORD, keyword.ordinal());
+    }
+
+    @Override
+    public void symbol(char symbol) {
+        writeToken(TokenType.SYMBOL, symbol);
+    }
+
+    @Override
+    public void token(TokenType type, String text) {
+        Integer index = stringIndices.get(text);
+        if (index == null) {
+            index = strings.size();
+            strings.add(text);
+            stringIndices.put(text, index);
+        }
+        writeToken(type, index);
+    }
+
+    /**
+     * Writes the header, the string table and the tokens and closes the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        byte[] header = new byte[MAGIC.length + Varints.MAX_LENGTH];
+        System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+        output.write(header, 0, Varints.write(header, MAGIC.length, strings.size()));
+
+        byte[] varint = new byte[Varints.MAX_LENGTH];
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            output.write(varint, 0, Varints.write(varint, 0, bytes.length));
+            output.write(bytes);
+        }
+
+        output.write(varint, 0, Varints.write(varint, 0, tokenCount));
+        output.write(tokens, 0, size);
+        output.close();
+    }
+
+    private void writeToken(TokenType type, int value) {
+        if (size + 1 + Varints.MAX_LENGTH > tokens.length) {
+            tokens = Arrays.copyOf(tokens, 2 * tokens.length);
+        }
+        tokens[size++] = (byte) type.ordinal();
+        size = Varints.write(tokens, size, value);
+        tokenCount++;
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads a parsing tree written by BinaryTreeWriter and reports it to a listener, e.g. an XmlWriter or a ParseTree.
+ */
+public class BinaryTreeReader {
+    private final byte[] data;
+    private int position;
+
+    /**
+     * Reads the complete binary file.
+     *
+     * @param input stream of the binary file
+     */
+    public BinaryTreeReader(InputStream input) throws IOException {
+        data = input.readAllBytes();
+        position = 0;
+        if (data.length < BinaryTreeWriter.MAGIC.length
+                || !Arrays.equals(data, 0, BinaryTreeWriter.MAGIC.length, BinaryTreeWriter.MAGIC, 0, BinaryTreeWriter.MAGIC.length)) {
+            throw new IOException("Not a binary parsing tree");
+        }
+        position = BinaryTreeWriter.MAGIC.length;
+    }
+
+    /**
+     * Reports all nodes of the tree to the listener. Does not close the listener.
+     */
+    public void read(ParseListener listener) throws IOException {
+        NonTerminal[] rules = NonTerminal.values();
+        Keyword[] keywords = Keyword.values();
+        TokenType[] tokenTypes = TokenType.values();
+        NonTerminal[] openRules = new NonTerminal[64];
+        int[] ruleEnds = new int[64];
+        int depth = 0;
+
+        while (position < data.length || depth > 0) {
+            if (depth > 0 && position >= ruleEnds[depth - 1]) {
+                listener.close(openRules[--depth]);
+                continue;
+            }
+
+            int tag = readByte();
+            if (tag < BinaryTreeWriter.TOKEN_TAG) {
+                if (tag >= rules.length) {
+                    throw new IOException("Invalid rule " + tag + " at byte " + (position - 1));
+                }
+                int length = readLength(readInt());
+                if (depth == openRules.length) {
+                    openRules = Arrays.copyOf(openRules, 2 * depth);
+                    ruleEnds = Arrays.copyOf(ruleEnds, 2 * depth);
+                }
+                openRules[depth] = rules[tag];
+                ruleEnds[depth++] = position + length;
+                listener.open(rules[tag]);
+                continue;
+            }
+
+            int type = tag - BinaryTreeWriter.TOKEN_TAG;
+            if (type >= tokenTypes.length) {
+                throw new IOException("Invalid token type " + tag + " at byte " + (position - 1));
+            }
+            switch (tokenTypes[type]) {
+                case KEYWORD:
+                    int keyword = readByte();
+                    if (keyword >= keywords.length) {
+                        throw new IOException("Invalid keyword " + keyword + " at byte " + (position - 1));
+                    }
+                    listener.keyword(keywords[keyword]);
+                    break;
+                case SYMBOL:
+                    listener.symbol((char) readByte());
+                    break;
+                default:
+                    int length = readLength(readVarint());
+                    String text = new String(data, position, length, StandardCharsets.UTF_8);
+                    if (tokenTypes[type] == TokenType.INT_CONST && !JackTokenizer.isIntConst(text)) {
+                        throw new IOException("Invalid integer constant '" + text + "' at byte " + position);
+                    }
+                    listener.token(tokenTypes[type], text);
+                    position += length;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @returns the next byte as value from 0 to 255.
+     * @throws IOException if the file ends before
+     */
+    private int readByte() throws IOException {
+        if (position >= data.length) {
+            throw new IOException("Truncated binary parsing tree");
+        }
+        return data[position++] & 0xff;
+    }
+
+    /**
+     * @returns the length of a rule or a string if the remaining bytes contain it.
+     * @throws IOException if the length is negative or larger than the remaining bytes
+     */
+    private int readLength(int length) throws IOException {
+        if (length < 0 || length > data.length - position) {
+            throw new IOException("Invalid length " + length + " at byte " + position);
+        }
+        return length;
+    }
+
+    private int readInt() throws IOException {
+        return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+    }
+
+    private int readVarint() throws IOException {
+        int[] next = {position};
+        int value = Varints.read(data, next);
+        position = next[0];
+        return value;
+    }
+}
@@ -0,0 +1,105 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes the parsing tree in a compact binary format that can be read with BinaryTreeReader.
+ * <p>
+ * The file starts with the 4 bytes 'J' 'P' 'T' 2. Each node starts with a tag byte:
+ * - rule:           ordinal of the NonTerminal, followed by the length of its children in bytes as 4 byte big endian int
+ * - keyword:        0x80, followed by the ordinal of the Keyword
+ * - symbol:         0x81, followed by the symbol character
+ * - identifier:     0x82, followed by the length of the UTF-8 text as varint and the text
+ * - integer:        0x83, followed by the length of the UTF-8 text as varint and the text as in the source code
+ * - string:         0x84, followed by the length of the UTF-8 text as varint and the text
+ * The token tags are 0x80 + the ordinal of the TokenType. Varints store 7 bits per byte, lowest bits first,
+ * the highest bit is set in all bytes except the last one. With the length of a rule a reader can skip it.
+ * <p>
+ * The file is built in memory, because the length of a rule is only known at its end.
+ */
+public class BinaryTreeWriter implements ParseListener {
+    static final byte[] MAGIC = {'J', 'P', 'T', 2};
+    static final int TOKEN_TAG = 0x80;
+
+    private final OutputStream output;
+    private byte[] buffer;
+    private int size;
+    private int[] openRules;
+    private int depth;
+
+    /**
+     * @param output stream of the binary file
+     */
+    public BinaryTreeWriter(OutputStream output) {
+        this.output = output;
+        buffer = new byte[1 << 16];
+        size = 0;
+        openRules = new int[64];
+        depth = 0;
+        for (byte b : MAGIC) {
+            writeByte(b);
+        }
+    }
+
+    @Override
+    public void open(NonTerminal rule) {
+        writeByte(rule.ordinal());
+        if (depth == openRules.length) {
+            openRules = Arrays.copyOf(openRules, 2 * depth);
+        }
+        openRules[depth++] = size;
+        ensureCapacity(4);
+        size += 4;
+    }
+
+    @Override
+    public void close(NonTerminal rule) {
+        int lengthPosition = openRules[--depth];
+        int length = size - lengthPosition - 4;
+        buffer[lengthPosition] = (byte) (length >>> 24);
+        buffer[lengthPosition + 1] = (byte) (length >>> 16);
+        buffer[lengthPosition + 2] = (byte) (length >>> 8);
+        buffer[lengthPosition + 3] = (byte) length;
+    }
+
+    @Override
+    public void keyword(Keyword keyword) {
+        writeByte(TOKEN_TAG + TokenType.KEYWORD.ordinal());
+        writeByte(keyword.ordinal());
+    }
+
+    @Override
+    public void symbol(char symbol) {
+        writeByte(TOKEN_TAG + TokenType.SYMBOL.ordinal());
+        writeByte(symbol);
+    }
+
+    @Override
+    public void token(TokenType type, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeByte(TOKEN_TAG + type.ordinal());
+        ensureCapacity(Varints.MAX_LENGTH);
+        size = Varints.write(buffer, size, bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.write(buffer, 0, size);
+        output.close();
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+    }
+
+    private void ensureCapacity(int length) {
+        if (size + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(2 * buffer.length, size + length));
+        }
+    }
+}
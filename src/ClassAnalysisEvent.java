@@ -0,0 +1,52 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for the complete analysis of a class, from reading the source code to writing the output
+ * files. Classes skipped by the cache are not reported.
+ */
+@Name("jack.ClassAnalysis")
+@Label("Class Analysis")
+@Category("Jack Analyzer")
+@Description("Analysis of a Jack class from reading the source code to writing the output files")
+public class ClassAnalysisEvent extends jdk.jfr.Event {
+    @Label("File")
+    String file;
+
+    @Label("Bytes In")
+    @DataAmount
+    long bytesIn;
+
+    @Label("Bytes Out")
+    @DataAmount
+    long bytesOut;
+
+    @Label("Tokens")
+    int tokens;
+
+    @Label("Nodes")
+    int nodes;
+
+    @Label("Errors")
+    int errors;
+
+    /**
+     * Ends the event and commits it with the metrics of the class, if the event is enabled in a recording.
+     */
+    static void commit(ClassAnalysisEvent event, AnalysisResult result) {
+        event.end();
+        if (event.shouldCommit()) {
+            ClassMetrics metrics = result.getMetrics();
+            event.file = result.getFileName();
+            event.bytesIn = metrics.getBytesIn();
+            event.bytesOut = metrics.getBytesOut();
+            event.tokens = metrics.getTokens();
+            event.nodes = metrics.getNodes();
+            event.errors = result.getErrorCount();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Declarations and subroutine calls of one .jack file with their source positions, see IndexBuilder and JackIndex.
+ * Lines and columns start at 1, they are 0 if the tokens had no positions.
+ */
+public class ClassIndex {
+
+    /**
+     * Kind of a declaration.
+     */
+    public enum Kind {
+        CLASS, STATIC, FIELD, CONSTRUCTOR, FUNCTION, METHOD
+    }
+
+    private final String file;
+    private String className;
+    private final List<Symbol> symbols;
+    private final List<Call> calls;
+
+    /**
+     * @param file absolute path of the .jack file
+     */
+    ClassIndex(String file) {
+        this.file = file;
+        className = "";
+        symbols = new ArrayList<>();
+        calls = new ArrayList<>();
+    }
+
+    /**
+     * @returns the absolute path of the .jack file.
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * @returns the name of the class, or an empty string if the file has no class name.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    void setClassName(String className) {
+        this.className = className;
+    }
+
+    /**
+     * @returns the class, its static and field variables and its subroutines in the order of the source code.
+     */
+    public List<Symbol> getSymbols() {
+        return Collections.unmodifiableList(symbols);
+    }
+
+    /**
+     * @returns the subroutine calls in the order of the source code.
+     */
+    public List<Call> getCalls() {
+        return Collections.unmodifiableList(calls);
+    }
+
+    void addSymbol(Kind kind, String name, String type, int line, int column) {
+        symbols.add(new Symbol(kind, name, type, line, column));
+    }
+
+    void addCall(String caller, String className, String subroutineName, int line, int column) {
+        calls.add(new Call(caller, className, subroutineName, line, column));
+    }
+
+    /**
+     * Declaration of the class, a variable or a subroutine.
+     */
+    public class Symbol {
+        private final Kind kind;
+        private final String name;
+        private final String type;
+        private final int line;
+        private final int column;
+
+        Symbol(Kind kind, String name, String type, int line, int column) {
+            this.kind = kind;
+            this.name = name;
+            this.type = type;
+            this.line = line;
+            this.column = column;
+        }
+
+        /**
+         * @returns the index of the file that contains the declaration.
+         */
+        public ClassIndex getClassIndex() {
+            return ClassIndex.this;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @returns the type of a variable, the return type of a subroutine or an empty string for the class.
+         */
+        public String getType() {
+            return type;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+    }
+
+    /**
+     * Call of a subroutine, e.g. 'do game.run()' in Main.main calls SquareGame.run if game is a SquareGame.
+     * <p>
+     * The class of the called subroutine is the declared type of the variable before the '.', or the name before the
+     * '.' if there is no such variable, or the calling class for calls without '.'.
+     */
+    public class Call {
+        private final String caller;
+        private final String className;
+        private final String subroutineName;
+        private final int line;
+        private final int column;
+
+        Call(String caller, String className, String subroutineName, int line, int column) {
+            this.caller = caller;
+            this.className = className;
+            this.subroutineName = subroutineName;
+            this.line = line;
+            this.column = column;
+        }
+
+        /**
+         * @returns the index of the file that contains the call.
+         */
+        public ClassIndex getClassIndex() {
+            return ClassIndex.this;
+        }
+
+        /**
+         * @returns the name of the calling subroutine, or an empty string if the call is not inside a subroutine.
+         */
+        public String getCaller() {
+            return caller;
+        }
+
+        /**
+         * @returns the name of the class of the called subroutine.
+         */
+        public String getClassName() {
+            return className;
+        }
+
+        public String getSubroutineName() {
+            return subroutineName;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+    }
+}
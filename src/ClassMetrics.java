@@ -0,0 +1,93 @@
+/**
+ * Measurements of the analysis of one class: the time of each phase, the size of the input and output files,
+ * and the number of tokens and nodes of the parsing tree.
+ */
+public class ClassMetrics {
+
+    /**
+     * Phases of the analysis of a class, in the order in which they run.
+     */
+    public enum Phase {
+        READ,
+        TOKENIZE,
+        PARSE,
+        WRITE
+    }
+
+    private final long[] phaseNanos;
+    private long bytesIn;
+    private long bytesOut;
+    private int tokens;
+    private int nodes;
+
+    public ClassMetrics() {
+        phaseNanos = new long[Phase.values().length];
+        bytesIn = 0;
+        bytesOut = 0;
+        tokens = 0;
+        nodes = 0;
+    }
+
+    /**
+     * @returns the time of the phase in nanoseconds.
+     */
+    public long getNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @returns the time of all phases in nanoseconds.
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long nanos : phaseNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    void addNanos(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * @returns the size of the .jack file in bytes.
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    void setBytesIn(long bytesIn) {
+        this.bytesIn = bytesIn;
+    }
+
+    /**
+     * @returns the size of all written files in bytes.
+     */
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    void addBytesOut(long bytes) {
+        bytesOut += bytes;
+    }
+
+    public int getTokens() {
+        return tokens;
+    }
+
+    void setTokens(int tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * @returns the number of rules and tokens in the parsing tree.
+     */
+    public int getNodes() {
+        return nodes;
+    }
+
+    void setNodes(int nodes) {
+        this.nodes = nodes;
+    }
+}
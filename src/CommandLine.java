@@ -0,0 +1,351 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Arguments of the JackAnalyzer command. See USAGE for the syntax.
+ * <p>
+ * Paths are .jack files, names of .jack files without extension, or directories. The output files of a class are
+ * written next to its .jack file, or with -d into the output directory at the same relative path as below the
+ * directory that was given on the command line.
+ */
+public class CommandLine {
+    public static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: JackAnalyzer [options] path...",
+            "  path                  .jack file, file name without .jack, or directory",
+            "  @file                 reads more paths from a file, one per line",
+            "  -                     reads more paths from the standard input, one per line",
+            "Options:",
+            "  -r, --recursive       analyzes the .jack files of all subdirectories",
+            "  -d, --output DIR      writes the output files into DIR instead of next to the .jack files",
+            "  -t, --threads N       number of classes or server requests analyzed at the same time",
+            "  -c, --check           only checks the syntax, writes no output files",
+            "  -f, --format LIST     formats of the parsing tree, comma separated: xml, json, sexp, binary",
+            "      --tokens FORMAT   format of the token file: xml or binary",
+            "      --no-tokens       does not write the token file",
+            "  -e, --max-errors N    stops analyzing a class after N errors",
+            "      --indent          indents the xml files",
+            "      --cache FILE      cache of unchanged classes, .jackcache by default except with --check",
+            "      --no-cache        analyzes all classes",
+            "      --index FILE      updates the index of declarations and calls of all classes, see JackIndex",
+            "      --pipeline        reads, tokenizes, parses and writes in concurrent stages",
+            "      --parallel        parses the subroutines of large classes in parallel",
+            "      --metrics FILE    writes the time and size of each phase of each class as JSON, - for the console",
+            "  -w, --watch           analyzes changed classes of a directory until stopped",
+            "      --serve PORT      answers analysis requests on a loopback HTTP port until stopped, see AnalysisServer",
+            "  -h, --help            prints this text");
+
+    private final AnalyzerOptions options;
+    private final List<String> paths;
+    private boolean recursive;
+    private File outputDirectory;
+    private File cacheFile;
+    private boolean noCache;
+    private File indexFile;
+    private String metricsFile;
+    private boolean watch;
+    private int serverPort;
+    private boolean help;
+
+    private CommandLine() {
+        options = new AnalyzerOptions();
+        paths = new ArrayList<>();
+        recursive = false;
+        outputDirectory = null;
+        cacheFile = null;
+        noCache = false;
+        indexFile = null;
+        metricsFile = null;
+        watch = false;
+        serverPort = 0;
+        help = false;
+    }
+
+    /**
+     * @param args  arguments of main
+     * @param stdin standard input, read if an argument is '-'
+     * @throws IllegalArgumentException if the arguments are invalid
+     */
+    public static CommandLine parse(String[] args, Reader stdin) throws IOException {
+        CommandLine commandLine = new CommandLine();
+        AnalyzerOptions options = commandLine.options;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-r":
+                case "--recursive":
+                    commandLine.recursive = true;
+                    break;
+                case "-d":
+                case "--output":
+                    commandLine.outputDirectory = new File(value(args, ++i, arg));
+                    break;
+                case "-t":
+                case "--threads":
+                    options.setThreads(intValue(args, ++i, arg));
+                    break;
+                case "-c":
+                case "--check":
+                    options.setCheckOnly(true);
+                    break;
+                case "-f":
+                case "--format":
+                    options.setFormats(formats(value(args, ++i, arg)));
+                    break;
+                case "--tokens":
+                    options.setTokenFormat(enumValue(TokenFileFormat.class, value(args, ++i, arg), arg));
+                    break;
+                case "--no-tokens":
+                    options.setWriteTokenFile(false);
+                    break;
+                case "-e":
+                case "--max-errors":
+                    options.setMaxErrors(intValue(args, ++i, arg));
+                    break;
+                case "--indent":
+                    options.setIndent(true);
+                    break;
+                case "--cache":
+                    commandLine.cacheFile = new File(value(args, ++i, arg));
+                    commandLine.noCache = false;
+                    break;
+                case "--no-cache":
+                    commandLine.cacheFile = null;
+                    commandLine.noCache = true;
+                    break;
+                case "--index":
+                    commandLine.indexFile = new File(value(args, ++i, arg));
+                    break;
+                case "--pipeline":
+                    options.setPipeline(true);
+                    break;
+                case "--parallel":
+                    options.setParallelParsing(true);
+                    break;
+                case "--metrics":
+                    commandLine.metricsFile = value(args, ++i, arg);
+                    options.setMetrics(true);
+                    break;
+                case "-w":
+                case "--watch":
+                    commandLine.watch = true;
+                    break;
+                case "--serve":
+                    commandLine.serverPort = intValue(args, ++i, arg);
+                    break;
+                case "-h":
+                case "--help":
+                    commandLine.help = true;
+                    break;
+                case "-":
+                    readPaths(new BufferedReader(stdin), commandLine.paths);
+                    break;
+                default:
+                    if (arg.startsWith("@")) {
+                        try (BufferedReader input = new BufferedReader(new FileReader(arg.substring(1)))) {
+                            readPaths(input, commandLine.paths);
+                        }
+                    } else if (arg.startsWith("-") && arg.length() > 1) {
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                    } else {
+                        commandLine.paths.add(arg);
+                    }
+                    break;
+            }
+        }
+
+        if (commandLine.isServer() && (commandLine.watch || !commandLine.paths.isEmpty())) {
+            throw new IllegalArgumentException("--serve takes the classes from the requests, no paths or --watch");
+        }
+        if (!commandLine.help && !commandLine.isServer() && commandLine.paths.isEmpty()) {
+            throw new IllegalArgumentException("No path given");
+        }
+        if (commandLine.watch && (commandLine.paths.size() != 1 || !new File(commandLine.paths.get(0)).isDirectory())) {
+            throw new IllegalArgumentException("--watch needs exactly one directory");
+        }
+        if (commandLine.watch && commandLine.outputDirectory != null) {
+            throw new IllegalArgumentException("--watch writes the output files next to the .jack files, --output is not supported");
+        }
+        // only checking writes no files, so the default cache is only used if the output files are written
+        if (commandLine.cacheFile == null && !commandLine.noCache && !options.isCheckOnly()) {
+            commandLine.cacheFile = new File(".jackcache");
+        }
+        if (commandLine.cacheFile != null) {
+            options.setCache(new AnalysisCache(commandLine.cacheFile));
+        }
+        if (commandLine.indexFile != null) {
+            options.setIndex(new JackIndex(commandLine.indexFile));
+        }
+        return commandLine;
+    }
+
+    public AnalyzerOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * @returns true if the analyzer should watch the directory given as only path.
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * @returns the file for the MetricsReport, "-" for the standard output, or null if no report should be written.
+     */
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
+    /**
+     * @returns true if the analyzer should run as AnalysisServer.
+     */
+    public boolean isServer() {
+        return serverPort > 0;
+    }
+
+    /**
+     * @returns the port of the AnalysisServer.
+     */
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    /**
+     * @returns true if only the usage should be printed.
+     */
+    public boolean isHelp() {
+        return help;
+    }
+
+    /**
+     * @returns the paths given as arguments and in file lists.
+     */
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Finds the .jack files of all paths. A path that does not exist is kept as .jack file, so that it is reported
+     * as failed class. Each .jack file is analyzed only once, even if it is given several times.
+     *
+     * @returns the output path without extension for each .jack file, in the order of the paths.
+     */
+    public Map<File, String> findClasses() throws IOException {
+        Map<File, String> classes = new LinkedHashMap<>();
+        for (String path : paths) {
+            File file = new File(path);
+            if (file.isDirectory()) {
+                findClasses(file, file, classes);
+            } else if (!path.endsWith(".jack") && new File(path + ".jack").isFile()) {
+                addClass(new File(path + ".jack"), file.getAbsoluteFile().getParentFile(), classes);
+            } else {
+                addClass(file, file.getAbsoluteFile().getParentFile(), classes);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Adds the .jack files of the directory sorted by name, and with -r the .jack files of its subdirectories.
+     */
+    private void findClasses(File directory, File root, Map<File, String> classes) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Could not list directory '" + directory + "'");
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        for (File file : files) {
+            if (file.isFile() && file.getName().endsWith(".jack")) {
+                addClass(file, root, classes);
+            }
+        }
+        if (recursive) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    findClasses(file, root, classes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a class with its output path. With an output directory, the path of the .jack file relative to root
+     * is kept below the output directory.
+     */
+    private void addClass(File jackFile, File root, Map<File, String> classes) throws IOException {
+        String name = jackFile.getName();
+        if (name.endsWith(".jack")) {
+            name = name.substring(0, name.length() - ".jack".length());
+        }
+        File output;
+        if (outputDirectory == null) {
+            output = new File(jackFile.getParentFile(), name);
+        } else {
+            Path relative = root.getAbsoluteFile().toPath().relativize(jackFile.getAbsoluteFile().toPath());
+            Path parent = relative.getParent();
+            File directory = parent != null ? outputDirectory.toPath().resolve(parent).toFile() : outputDirectory;
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create directory '" + directory + "'");
+            }
+            output = new File(directory, name);
+        }
+        classes.putIfAbsent(jackFile.getAbsoluteFile().toPath().normalize().toFile(), output.getPath());
+    }
+
+    private static void readPaths(BufferedReader input, List<String> paths) throws IOException {
+        for (String line = input.readLine(); line != null; line = input.readLine()) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                paths.add(line);
+            }
+        }
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value of " + option);
+        }
+        return args[i];
+    }
+
+    private static int intValue(String[] args, int i, String option) {
+        try {
+            int value = Integer.parseInt(value(args, i, option));
+            if (value < 1) {
+                throw new IllegalArgumentException("Value of " + option + " must be at least 1");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Value of " + option + " is not a number: " + args[i]);
+        }
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value, String option) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown value of " + option + ": " + value);
+        }
+    }
+
+    private static Set<OutputFormat> formats(String list) {
+        Set<OutputFormat> formats = EnumSet.noneOf(OutputFormat.class);
+        for (String format : list.split(",")) {
+            formats.add(enumValue(OutputFormat.class, format.trim(), "--format"));
+        }
+        return formats;
+    }
+}
@@ -1,112 +1,194 @@
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.Writer;
+import java.util.Arrays;
 
 /**
  * Implements the program structure, statements, and expressions of the Jack grammar.
- * Takes input from JackTokenizer.
+ * Takes input from a TokenSource, normally the JackTokenizer, or a token file.
  * Described in unit 4.5. The Jack grammar is also presented in that unit.
+ * <p>
+ * The parsing tree is reported to a ParseListener while it is parsed, which writes it in an output format like
+ * xml or builds it in memory as a ParseTree.
+ * <p>
+ * The current token is the current token of the tokenizer. Decisions are made on its TokenType, Keyword or symbol
+ * character, the xml text of a token is only used for the output.
+ * <p>
+ * Errors are reported to Diagnostics. After an error the parser is in panic mode: further errors are not reported
+ * until it has skipped to a token where parsing can continue, i.e. after a ';', before a '}', a statement keyword or
+ * the start of a class member. Tokens that do not fit the grammar are not eaten, so that such a synchronization
+ * token is not lost. If the error limit of the Diagnostics is reached, the open rules are closed and parsing stops.
  */
 public class CompilationEngine {
-    FileWriter outputFile;
-    Scanner inputScanner;
+    ParseListener listener;
+    TokenSource tokenizer;
+    Diagnostics diagnostics;
+    int errorCount;
+    boolean recovering;
 
-    String currentToken;
+    // rules that are open in the output, innermost last
+    NonTerminal[] openRules;
+    int depth;
+
+    // steps of suspended expressions, terms and expression lists, innermost last
+    private PendingStep[] pending;
+    private int pendingCount;
+
+    TokenType currentType;
 
     private static final String ERROR_MESSAGE = "Parser Error. ";
 
     /**
-     * Creates a new compilation engine with the given input and output.
+     * Creates a new compilation engine that pulls its tokens one by one from the tokenizer.
      *
-     * @param inputFile  nameT.xml file with all tokens
+     * @param tokenizer  tokenizer of the .jack file or reader of a token file
      * @param outputFile name.xml file with parsing tree
      */
-    public CompilationEngine(FileReader inputFile, FileWriter outputFile) {
-        this.outputFile = outputFile;
-        inputScanner = new Scanner(inputFile);
-        currentToken = "";
+    public CompilationEngine(TokenSource tokenizer, Writer outputFile) {
+        this(tokenizer, new XmlWriter(outputFile));
+    }
+
+    /**
+     * Creates a new compilation engine that pulls its tokens one by one from the tokenizer.
+     *
+     * @param tokenizer tokenizer of the .jack file or reader of a token file
+     * @param listener  receives the parsing tree, e.g. an XmlWriter, a ParseTree or a MultiListener
+     */
+    public CompilationEngine(TokenSource tokenizer, ParseListener listener) {
+        openRules = new NonTerminal[32];
+        pending = new PendingStep[32];
+        start(tokenizer, listener);
+    }
+
+    /**
+     * Starts parsing a class with the stacks of this engine. Called by the constructor and, for another class, by
+     * the engines of ParserPool. The diagnostics are reset to the default.
+     *
+     * @param tokenizer tokenizer of the .jack file or reader of a token file
+     * @param listener  receives the parsing tree
+     */
+    void start(TokenSource tokenizer, ParseListener listener) {
+        this.listener = listener;
+        this.tokenizer = tokenizer;
+        diagnostics = new Diagnostics(null).setEcho(System.out);
+        errorCount = 0;
+        recovering = false;
+        depth = 0;
+        pendingCount = 0;
+        currentType = null;
+    }
+
+    /**
+     * @param diagnostics collects the syntax errors, by default they are printed to System.out
+     */
+    public void setDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * @returns the number of syntax errors found so far.
+     */
+    public int getErrorCount() {
+        return errorCount;
     }
 
     /**
      * Compiles a complete class. Grammar class: 'class' className '{' classVarDec* subroutineDec* '}'
+     * Tokens after the '}' of the class are reported as one error.
      */
     public void compileClass() throws IOException {
+        try {
+            nextToken();
 
-        currentToken = inputScanner.nextLine();
-        if (!currentToken.equals("<tokens>")) {
-            System.out.println(ERROR_MESSAGE + "Tokenized file does not begin with tag '<tokens>'");
-        }
-        currentToken = inputScanner.nextLine();
+            open(NonTerminal.CLASS);
 
-        outputFile.write("<class>\n");
+            eatKeyword(Keyword.CLASS);
+            eatIdentifier();
+            eatSymbol('{');
+            synchronizeMember();
 
-        eat("<keyword> class </keyword>");
-        eatIdentifier(currentToken);
-        eat("<symbol> { </symbol>");
+            while (true) {
+                // (classVarDec)*
+                while (isKeyword(Keyword.STATIC) || isKeyword(Keyword.FIELD)) {
+                    compileClassVarDec();
+                    synchronizeMember();
+                }
 
-        // (classVarDec)*
-        while (currentToken.equals("<keyword> static </keyword>") || currentToken.equals("<keyword> field </keyword>")) {
-            compileClassVarDec();
-        }
+                // (subroutineDec)*
+                while (isKeyword(Keyword.CONSTRUCTOR) || isKeyword(Keyword.FUNCTION) || isKeyword(Keyword.METHOD)) {
+                    compileSubroutineDec();
+                    synchronizeMember();
+                }
 
-        // (subroutineDec)*
-        while (currentToken.equals("<keyword> constructor </keyword>") ||
-                currentToken.equals("<keyword> function </keyword>") || currentToken.equals("<keyword> method </keyword>")) {
-            compileSubroutineDec();
-        }
+                if (currentType == null || isSymbol('}')) {
+                    break;
+                }
+                // tokens between the members, continue with the next member if there is one
+                error("Invalid token '" + describeToken() + "' instead of '}'", "}");
+                synchronizeMember();
+                if (!isMemberKeyword()) {
+                    break;
+                }
+            }
 
-        eat("<symbol> } </symbol>");
+            eatSymbol('}');
+            if (currentType != null) {
+                error("Unexpected token '" + tokenText() + "' after end of class", null);
+            }
 
-        outputFile.write("</class>\n");
-        outputFile.close();
+            close(NonTerminal.CLASS);
+        } catch (ErrorLimitException e) {
+            pendingCount = 0;
+            while (depth > 0) {
+                close(openRules[depth - 1]);
+            }
+        }
+        listener.close();
     }
 
     /**
      * Compiles class variable declaration. Grammar classVarDec: ('static' | 'field') type varName (',', varName)* ';'
      */
     public void compileClassVarDec() throws IOException {
-        outputFile.write("<classVarDec>\n");
+        open(NonTerminal.CLASS_VAR_DEC);
 
-        eat(currentToken);  // 'static' | 'field'
-        eatType(currentToken);
-        eatIdentifier(currentToken);
+        eat();  // 'static' | 'field'
+        eatType();
+        eatIdentifier();
 
-        while (currentToken.equals("<symbol> , </symbol>")) {
-            eat(currentToken);  // ','
-            eatIdentifier(currentToken);
+        while (isSymbol(',')) {
+            eat();  // ','
+            eatIdentifier();
         }
 
-        eat("<symbol> ; </symbol>");
+        eatSymbol(';');
 
-        outputFile.write("</classVarDec>\n");
+        close(NonTerminal.CLASS_VAR_DEC);
     }
 
     /**
      * Compiles a subroutine declaration. Grammar subroutineDec: (method | function | constructor) (void | type) subroutineName '(' parameterList ')' subroutineBody
      */
     public void compileSubroutineDec() throws IOException {
-        outputFile.write("<subroutineDec>\n");
+        open(NonTerminal.SUBROUTINE_DEC);
 
         // (method | function | constructor)
-        eat(currentToken);
+        eat();
 
         // (void | type)
-        if (!currentToken.equals("<keyword> boolean </keyword>") && !currentToken.equals("<keyword> int </keyword>") &&
-                !currentToken.equals("<keyword> char </keyword>") && !currentToken.equals("<keyword> void </keyword>") &&
-                !currentToken.startsWith("<identifier>")) {
-            System.out.println(ERROR_MESSAGE + "Invalid subroutine return type '" + currentToken + "'");
+        if (isKeyword(Keyword.VOID)) {
+            eat();
+        } else {
+            eatType();
         }
-        eat(currentToken);
 
         // subroutineName
-        eatIdentifier(currentToken);
-        eat("<symbol> ( </symbol>");
+        eatIdentifier();
+        eatSymbol('(');
         compileParameterList();
-        eat("<symbol> ) </symbol>");
+        eatSymbol(')');
         compileSubroutineBody();
 
-        outputFile.write("</subroutineDec>\n");
+        close(NonTerminal.SUBROUTINE_DEC);
     }
 
     /**
@@ -114,67 +196,62 @@ public class CompilationEngine {
      * Possibly empty, does not handle the enclosing ()
      */
     public void compileParameterList() throws IOException {
-        outputFile.write("<parameterList>\n");
+        open(NonTerminal.PARAMETER_LIST);
 
-        if (currentToken.equals("<keyword> boolean </keyword>") || currentToken.equals("<keyword> int </keyword>") ||
-                currentToken.equals("<keyword> char </keyword>") || currentToken.startsWith("<identifier>")) {
+        if (isType()) {
             // type
-            eat(currentToken);
+            eat();
             // varName
-            eatIdentifier(currentToken);
+            eatIdentifier();
             // (',' type varName)*
-            while (currentToken.equals("<symbol> , </symbol>")) {
+            while (isSymbol(',')) {
                 // ','
-                eat(currentToken);
+                eat();
                 // type
-                if (!currentToken.equals("<keyword> boolean </keyword>") && !currentToken.equals("<keyword> int </keyword>") &&
-                        !currentToken.equals("<keyword> char </keyword>") && !currentToken.startsWith("<identifier>")) {
-                    System.out.println(ERROR_MESSAGE + "Invalid parameter list type '" + currentToken + "'");
-                }
-                eat(currentToken);
+                eatType();
                 // varName
-                eatIdentifier(currentToken);
+                eatIdentifier();
             }
         }
 
-        outputFile.write("</parameterList>\n");
+        close(NonTerminal.PARAMETER_LIST);
     }
 
     /**
      * Compiles a subroutine's body. Grammar subroutineBody: '{' varDec* statements '}'
      */
     public void compileSubroutineBody() throws IOException {
-        outputFile.write("<subroutineBody>\n");
+        open(NonTerminal.SUBROUTINE_BODY);
 
         // '{'
-        eat(currentToken);
+        eatSymbol('{');
         // (varDec)*
-        while (currentToken.equals("<keyword> var </keyword>")) {
+        while (isKeyword(Keyword.VAR)) {
             compileVarDec();
         }
         compileStatements();
         // '}'
-        eat(currentToken);
+        eatSymbol('}');
 
-        outputFile.write("</subroutineBody>\n");
+        close(NonTerminal.SUBROUTINE_BODY);
     }
 
     /**
      * Compiles a variable declaration. Grammar varDec: 'var' type varName (',' varName)* ';'
      */
     public void compileVarDec() throws IOException {
-        outputFile.write("<varDec>\n");
-
-        eat("<keyword> var </keyword>");
-        eatType(currentToken);
-        eatIdentifier(currentToken);
-        while (currentToken.equals("<symbol> , </symbol>")) {
-            eat("<symbol> , </symbol>");
-            eatIdentifier(currentToken);
+        open(NonTerminal.VAR_DEC);
+
+        eatKeyword(Keyword.VAR);
+        eatType();
+        eatIdentifier();
+        while (isSymbol(',')) {
+            eatSymbol(',');
+            eatIdentifier();
         }
-        eat("<symbol> ; </symbol>");
+        eatSymbol(';');
 
-        outputFile.write("</varDec>\n");
+        close(NonTerminal.VAR_DEC);
     }
 
     /**
@@ -182,34 +259,35 @@ public class CompilationEngine {
      * Does not handle the enclosing {}
      */
     public void compileStatements() throws IOException {
-        outputFile.write("<statements>\n");
+        open(NonTerminal.STATEMENTS);
+        synchronizeStatement();
 
-        while (currentToken.startsWith("<keyword> if </keyword>") || currentToken.startsWith("<keyword> while </keyword>")
-                || currentToken.startsWith("<keyword> let </keyword>") || currentToken.startsWith("<keyword> do </keyword>")
-                || currentToken.startsWith("<keyword> return </keyword>")) {
-            switch (currentToken) {
-                case "<keyword> if </keyword>":
+        boolean isStatement = true;
+        while (isStatement && currentType == TokenType.KEYWORD) {
+            switch (tokenizer.keyWord()) {
+                case IF:
                     compileIf();
                     break;
-                case "<keyword> while </keyword>":
+                case WHILE:
                     compileWhile();
                     break;
-                case "<keyword> let </keyword>":
+                case LET:
                     compileLet();
                     break;
-                case "<keyword> do </keyword>":
+                case DO:
                     compileDo();
                     break;
-                case "<keyword> return </keyword>":
+                case RETURN:
                     compileReturn();
                     break;
                 default:
-                    System.out.println(ERROR_MESSAGE + "Invalid statement '" + currentToken + "'");
+                    isStatement = false;
                     break;
             }
+            synchronizeStatement();
         }
 
-        outputFile.write("</statements>\n");
+        close(NonTerminal.STATEMENTS);
     }
 
     /**
@@ -217,26 +295,26 @@ public class CompilationEngine {
      * Possibly followed by an else clause.
      */
     public void compileIf() throws IOException {
-        outputFile.write("<ifStatement>\n");
+        open(NonTerminal.IF_STATEMENT);
 
         // if branch
-        eat("<keyword> if </keyword>");
-        eat("<symbol> ( </symbol>");
+        eatKeyword(Keyword.IF);
+        eatSymbol('(');
         compileExpression();
-        eat("<symbol> ) </symbol>");
-        eat("<symbol> { </symbol>");
+        eatSymbol(')');
+        eatSymbol('{');
         compileStatements();
-        eat("<symbol> } </symbol>");
+        eatSymbol('}');
 
         // optional else branch
-        if (currentToken.equals("<keyword> else </keyword>")){
-            eat("<keyword> else </keyword>");
-            eat("<symbol> { </symbol>");
+        if (isKeyword(Keyword.ELSE)) {
+            eatKeyword(Keyword.ELSE);
+            eatSymbol('{');
             compileStatements();
-            eat("<symbol> } </symbol>");
+            eatSymbol('}');
         }
 
-        outputFile.write("</ifStatement>\n");
+        close(NonTerminal.IF_STATEMENT);
 
     }
 
@@ -244,93 +322,79 @@ public class CompilationEngine {
      * Compiles a while statement. Grammar whileStatement: 'while' '(' expression ')' '{' statements'}'
      */
     public void compileWhile() throws IOException {
-        outputFile.write("<whileStatement>\n");
+        open(NonTerminal.WHILE_STATEMENT);
 
-        eat("<keyword> while </keyword>");
-        eat("<symbol> ( </symbol>");
+        eatKeyword(Keyword.WHILE);
+        eatSymbol('(');
         compileExpression();
-        eat("<symbol> ) </symbol>");
-        eat("<symbol> { </symbol>");
+        eatSymbol(')');
+        eatSymbol('{');
         compileStatements();
-        eat("<symbol> } </symbol>");
+        eatSymbol('}');
 
-        outputFile.write("</whileStatement>\n");
+        close(NonTerminal.WHILE_STATEMENT);
     }
 
     /**
      * Compiles a let statement. Grammar letStatement: 'let' varName ('[' expression ']')? '=' expression ';'
      */
     public void compileLet() throws IOException {
-        outputFile.write("<letStatement>\n");
+        open(NonTerminal.LET_STATEMENT);
 
-        eat("<keyword> let </keyword>");
-        if (!currentToken.startsWith("<identifier>")){
-            System.out.println(ERROR_MESSAGE + "Invalid statement let '" + currentToken + "'");
-        }
-        eatIdentifier(currentToken);
+        eatKeyword(Keyword.LET);
+        eatIdentifier();
 
         // ('[' expression ']')?
-        if (currentToken.equals("<symbol> [ </symbol>")){
-            eat("<symbol> [ </symbol>");
+        if (isSymbol('[')) {
+            eatSymbol('[');
             compileExpression();
-            eat("<symbol> ] </symbol>");
+            eatSymbol(']');
         }
 
-        eat("<symbol> = </symbol>");
+        eatSymbol('=');
         compileExpression();
-        eat("<symbol> ; </symbol>");
+        eatSymbol(';');
 
-        outputFile.write("</letStatement>\n");
+        close(NonTerminal.LET_STATEMENT);
     }
 
     /**
      * Compiles a return statement. Grammar returnStatement: 'return' (expression)? ';'
      */
     public void compileReturn() throws IOException {
-        outputFile.write("<returnStatement>\n");
+        open(NonTerminal.RETURN_STATEMENT);
 
-        eat("<keyword> return </keyword>");
-        if (!currentToken.equals("<symbol> ; </symbol>")) {
+        eatKeyword(Keyword.RETURN);
+        if (!isSymbol(';')) {
             compileExpression();
         }
 
-        eat("<symbol> ; </symbol>");
+        eatSymbol(';');
 
-        outputFile.write("</returnStatement>\n");
+        close(NonTerminal.RETURN_STATEMENT);
     }
 
     /**
      * Compiles a do statement. Grammar doStatement: 'do' subroutineCall ';'
      */
     public void compileDo() throws IOException {
-        outputFile.write("<doStatement>\n");
+        open(NonTerminal.DO_STATEMENT);
 
-        eat("<keyword> do </keyword>");
+        eatKeyword(Keyword.DO);
         compileSubroutineCall();
-        eat("<symbol> ; </symbol>");
+        eatSymbol(';');
 
-        outputFile.write("</doStatement>\n");
+        close(NonTerminal.DO_STATEMENT);
     }
 
 
     /**
-     * Compiles an expression. Grammar expression: term (op term)?
+     * Compiles an expression. Grammar expression: term (op term)*
+     * <p>
+     * Jack has no operator precedence, so all terms of an expression are children of the expression.
      */
     public void compileExpression() throws IOException {
-        outputFile.write("<expression>\n");
-
-        compileTerm();
-        // (op term)*
-        if (currentToken.equals("<symbol> + </symbol>") || currentToken.equals("<symbol> - </symbol>") ||
-                currentToken.equals("<symbol> * </symbol>") || currentToken.equals("<symbol> / </symbol>") ||
-                currentToken.equals("<symbol> = </symbol>") || currentToken.equals("<symbol> | </symbol>") ||
-                currentToken.equals("<symbol> &lt; </symbol>") || currentToken.equals("<symbol> &gt; </symbol>") ||
-                currentToken.equals("<symbol> &amp; </symbol>")) {
-            eat(currentToken);
-            compileTerm();
-        }
-
-        outputFile.write("</expression>\n");
+        compileNested(NonTerminal.EXPRESSION);
     }
 
     /**
@@ -342,50 +406,7 @@ public class CompilationEngine {
      * Any other token is not part of this term and should not be advanced over.
      */
     public void compileTerm() throws IOException {
-        outputFile.write("<term>\n");
-
-        // integerConstant || stringConstant || keyWordConstant
-        if (currentToken.startsWith("<integerConstant>") || currentToken.startsWith("<stringConstant>") ||
-                currentToken.equals("<keyword> true </keyword>") || currentToken.equals("<keyword> false </keyword>") ||
-                currentToken.equals("<keyword> null </keyword>") || currentToken.equals("<keyword> this </keyword>")) {
-            eat(currentToken);
-        }
-        // unaryOp
-        else if (currentToken.equals("<symbol> - </symbol>") || currentToken.equals("<symbol> ~ </symbol>")) {
-            eat(currentToken);
-            compileTerm();
-        } // '(' expression
-        else if (currentToken.equals("<symbol> ( </symbol>")) {
-            eat("<symbol> ( </symbol>");
-            compileExpression();
-            eat("<symbol> ) </symbol>");
-        } // subroutineCall
-        else if (currentToken.startsWith("<identifier>")) {
-            // identifier
-            eat(currentToken);
-            // identifier '[' expression ']'
-            if (currentToken.startsWith("<symbol> [ </symbol>")) {
-                eat("<symbol> [ </symbol>");
-                compileExpression();
-                eat("<symbol> ] </symbol>");
-            } // '(' expressionList ')'
-            else if (currentToken.startsWith("<symbol> ( </symbol>")) {
-                eat("<symbol> ( </symbol>");
-                compileExpressionList();
-                eat("<symbol> ) </symbol>");
-            } // '.' subroutineName '(' expressionList ')'
-            else if (currentToken.equals("<symbol> . </symbol>")) {
-                eat("<symbol> . </symbol>");
-                eat(currentToken);
-                eat("<symbol> ( </symbol>");
-                compileExpressionList();
-                eat("<symbol> ) </symbol>");
-            }
-        } else {
-            System.out.println(ERROR_MESSAGE + "Invalid term '" + currentToken  + "'");
-        }
-
-        outputFile.write("</term>\n");
+        compileNested(NonTerminal.TERM);
     }
 
     /**
@@ -394,66 +415,480 @@ public class CompilationEngine {
      */
     public void compileSubroutineCall() throws IOException {
 
-        // TODO look at next token to find out whether we need (className | varName) '.'
-        eatIdentifier(currentToken);
-        if (currentToken.equals("<symbol> . </symbol>")) {
-            eat("<symbol> . </symbol>");
-            eatIdentifier(currentToken);
+        eatIdentifier();
+        if (isSymbol('.')) {
+            eatSymbol('.');
+            eatIdentifier();
         }
-        eat("<symbol> ( </symbol>");
+        eatSymbol('(');
         compileExpressionList();
-        eat("<symbol> ) </symbol>");
+        eatSymbol(')');
     }
 
     /**
      * Compiles a list of expressions. Grammar expressionList: ( expression (',' expression)* )?
      */
     public void compileExpressionList() throws IOException {
-        outputFile.write("<expressionList>\n");
+        compileNested(NonTerminal.EXPRESSION_LIST);
+    }
 
-        if (!currentToken.equals("<symbol> ) </symbol>")) {
-            compileExpression();
-            while (currentToken.startsWith("<symbol> , </symbol>")) {
-                eat("<symbol> , </symbol>");
-                compileExpression();
+    /**
+     * Compiles an expression, a term or an expression list without recursion, so that generated code with deeply
+     * nested expressions does not need a large thread stack.
+     * <p>
+     * An expression, term or expression list that contains an expression or term is suspended: the step that
+     * continues it after the inner rule is pushed onto the stack of pending steps, and the inner rule is started.
+     * When a rule is complete, the innermost pending step continues. The output is the same as that of a
+     * recursive descent parser.
+     */
+    private void compileNested(NonTerminal rule) throws IOException {
+        int base = pendingCount;
+        NonTerminal next = rule;
+        while (next != null || pendingCount > base) {
+            next = next != null ? startRule(next) : continueRule(pending[--pendingCount]);
+        }
+    }
+
+    /**
+     * Starts an expression, a term or an expression list.
+     *
+     * @returns the inner rule that must be compiled next, or null if the rule is complete.
+     */
+    private NonTerminal startRule(NonTerminal rule) throws IOException {
+        open(rule);
+        switch (rule) {
+            case EXPRESSION:
+                push(PendingStep.OPERATOR);
+                return NonTerminal.TERM;
+            case EXPRESSION_LIST:
+                if (isSymbol(')')) {
+                    close(NonTerminal.EXPRESSION_LIST);
+                    return null;
+                }
+                push(PendingStep.SEPARATOR);
+                return NonTerminal.EXPRESSION;
+            default:
+                return startTerm();
+        }
+    }
+
+    /**
+     * Compiles the start of a term until it is complete or needs an inner expression, term or expression list.
+     *
+     * @returns the inner rule that must be compiled next, or null if the term is complete.
+     */
+    private NonTerminal startTerm() throws IOException {
+        if (currentType == null) {
+            error("Invalid term '" + describeToken() + "'", "term");
+        } else {
+            switch (currentType) {
+                // integerConstant || stringConstant
+                case INT_CONST:
+                case STRING_CONST:
+                    eat();
+                    break;
+                // keyWordConstant
+                case KEYWORD:
+                    if (isKeywordConstant()) {
+                        eat();
+                    } else {
+                        error("Invalid term '" + describeToken() + "'", "term");
+                    }
+                    break;
+                case SYMBOL:
+                    // unaryOp term
+                    if (isSymbol('-') || isSymbol('~')) {
+                        eat();
+                        push(PendingStep.CLOSE_TERM);
+                        return NonTerminal.TERM;
+                    } // '(' expression ')'
+                    else if (isSymbol('(')) {
+                        eatSymbol('(');
+                        push(PendingStep.CLOSE_PARENTHESIS);
+                        return NonTerminal.EXPRESSION;
+                    } else {
+                        error("Invalid term '" + describeToken() + "'", "term");
+                    }
+                    break;
+                // subroutineCall
+                case IDENTIFIER:
+                    // identifier
+                    eat();
+                    // identifier '[' expression ']'
+                    if (isSymbol('[')) {
+                        eatSymbol('[');
+                        push(PendingStep.CLOSE_BRACKET);
+                        return NonTerminal.EXPRESSION;
+                    } // '(' expressionList ')'
+                    else if (isSymbol('(')) {
+                        eatSymbol('(');
+                        push(PendingStep.CLOSE_PARENTHESIS);
+                        return NonTerminal.EXPRESSION_LIST;
+                    } // '.' subroutineName '(' expressionList ')'
+                    else if (isSymbol('.')) {
+                        eatSymbol('.');
+                        eatIdentifier();
+                        eatSymbol('(');
+                        push(PendingStep.CLOSE_PARENTHESIS);
+                        return NonTerminal.EXPRESSION_LIST;
+                    }
+                    break;
             }
         }
 
-        outputFile.write("</expressionList>\n");
+        close(NonTerminal.TERM);
+        return null;
+    }
+
+    /**
+     * Continues a suspended rule after its inner rule is complete.
+     *
+     * @returns the inner rule that must be compiled next, or null if the suspended rule is complete.
+     */
+    private NonTerminal continueRule(PendingStep step) throws IOException {
+        switch (step) {
+            case OPERATOR:
+                // (op term)*
+                if (isOp()) {
+                    eat();
+                    push(PendingStep.OPERATOR);
+                    return NonTerminal.TERM;
+                }
+                close(NonTerminal.EXPRESSION);
+                return null;
+            case SEPARATOR:
+                // (',' expression)*
+                if (isSymbol(',')) {
+                    eatSymbol(',');
+                    push(PendingStep.SEPARATOR);
+                    return NonTerminal.EXPRESSION;
+                }
+                close(NonTerminal.EXPRESSION_LIST);
+                return null;
+            case CLOSE_PARENTHESIS:
+                eatSymbol(')');
+                break;
+            case CLOSE_BRACKET:
+                eatSymbol(']');
+                break;
+        }
+        close(NonTerminal.TERM);
+        return null;
+    }
+
+    private void push(PendingStep step) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, 2 * pendingCount);
+        }
+        pending[pendingCount++] = step;
+    }
+
+    /**
+     * Makes the next token of the tokenizer the current token. The type is null at the end of the input.
+     */
+    void nextToken() throws IOException {
+        if (tokenizer.hasMoreTokens()) {
+            tokenizer.advance();
+            currentType = tokenizer.tokenType();
+        } else {
+            currentType = null;
+        }
+    }
+
+    /**
+     * Starts a rule in the output.
+     */
+    private void open(NonTerminal rule) throws IOException {
+        if (depth == openRules.length) {
+            openRules = Arrays.copyOf(openRules, 2 * depth);
+        }
+        openRules[depth++] = rule;
+        listener.open(rule);
+    }
 
+    /**
+     * Ends a rule in the output.
+     */
+    private void close(NonTerminal rule) throws IOException {
+        depth--;
+        listener.close(rule);
+    }
+
+    /**
+     * Adds the current token to the output.
+     */
+    private void writeToken() throws IOException {
+        listener.token(tokenizer);
     }
 
     /**
      * Eats the current token and moves on to the next token.
      */
-    private void eat(String token) throws IOException {
-        if (currentToken.equals(token)) {
-            outputFile.write(token + "\n");
+    private void eat() throws IOException {
+        if (currentType != null) {
+            writeToken();
         } else {
-            System.out.println(ERROR_MESSAGE + "Invalid token '" + currentToken + "' instead of '" + token + "'");
+            error("Unexpected end of file", null);
         }
-        currentToken = inputScanner.nextLine();
+        nextToken();
     }
 
     /**
-     * Eats the current type and moves on to the next token.
+     * Eats the current token if it is the given keyword and moves on to the next token.
+     */
+    private void eatKeyword(Keyword keyword) throws IOException {
+        if (isKeyword(keyword)) {
+            eat();
+        } else {
+            error("Invalid token '" + describeToken() + "' instead of '" + keyword.text() + "'", keyword.text());
+        }
+    }
+
+    /**
+     * Eats the current token if it is the given symbol and moves on to the next token.
+     */
+    private void eatSymbol(char symbol) throws IOException {
+        if (isSymbol(symbol)) {
+            eat();
+        } else {
+            error("Invalid token '" + describeToken() + "' instead of '" + symbol + "'", String.valueOf(symbol));
+        }
+    }
+
+    /**
+     * Eats the current identifier and moves on to the next token.
      */
-    private void eatIdentifier(String token) throws IOException {
-        eat(token);
-        if (!token.startsWith("<identifier>")) {
-            System.out.println(ERROR_MESSAGE + "Invalid identifier '" + token + "'");
+    private void eatIdentifier() throws IOException {
+        if (currentType == TokenType.IDENTIFIER) {
+            eat();
+        } else {
+            error("Invalid identifier '" + describeToken() + "'", "identifier");
         }
     }
 
     /**
      * Eats the current type and moves on to the next token.
      */
-    private void eatType(String token) throws IOException {
-        if (!token.equals("<keyword> boolean </keyword>") && !token.equals("<keyword> int </keyword>") &&
-                !token.equals("<keyword> char </keyword>") && !token.startsWith("<identifier>")) {
-            System.out.println(ERROR_MESSAGE + "Invalid type '" + token + "'");
+    private void eatType() throws IOException {
+        if (isType()) {
+            eat();
+        } else {
+            error("Invalid type '" + describeToken() + "'", "type");
+        }
+    }
+
+    /**
+     * @returns true if the current token is the given keyword.
+     */
+    private boolean isKeyword(Keyword keyword) {
+        return currentType == TokenType.KEYWORD && tokenizer.keyWord() == keyword;
+    }
+
+    /**
+     * @returns true if the current token is the given symbol.
+     */
+    private boolean isSymbol(char symbol) {
+        return currentType == TokenType.SYMBOL && tokenizer.symbol() == symbol;
+    }
+
+    /**
+     * @returns true if the current token is a type. Grammar type: 'int' | 'char' | 'boolean' | className
+     */
+    private boolean isType() {
+        if (currentType == TokenType.IDENTIFIER) {
+            return true;
+        }
+        if (currentType != TokenType.KEYWORD) {
+            return false;
+        }
+        switch (tokenizer.keyWord()) {
+            case INT:
+            case CHAR:
+            case BOOLEAN:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @returns true if the current token is a keyword constant. Grammar keywordConstant: 'true' | 'false' | 'null' | 'this'
+     */
+    private boolean isKeywordConstant() {
+        if (currentType != TokenType.KEYWORD) {
+            return false;
+        }
+        switch (tokenizer.keyWord()) {
+            case TRUE:
+            case FALSE:
+            case NULL:
+            case THIS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @returns true if the current token is an operator. Grammar op: '+' | '-' | '*' | '/' | '&' | '|' | '<' | '>' | '='
+     */
+    private boolean isOp() {
+        if (currentType != TokenType.SYMBOL) {
+            return false;
+        }
+        switch (tokenizer.symbol()) {
+            case '+':
+            case '-':
+            case '*':
+            case '/':
+            case '&':
+            case '|':
+            case '<':
+            case '>':
+            case '=':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @returns the text of the current token as in the source code for error messages, e.g. 'x'.
+     */
+    private String tokenText() {
+        switch (currentType) {
+            case KEYWORD:
+                return tokenizer.keyWord().text();
+            case SYMBOL:
+                return String.valueOf(tokenizer.symbol());
+            case INT_CONST:
+                return tokenizer.intText();
+            case IDENTIFIER:
+                return tokenizer.identifier();
+            default:
+                return '"' + tokenizer.stringVal() + '"';
+        }
+    }
+
+    /**
+     * @returns the current token for error messages.
+     */
+    private String describeToken() {
+        return currentType != null ? tokenizer.toXml() : "end of file";
+    }
+
+    /**
+     * Skips tokens after an error until a statement can start, i.e. after a ';' or before a '}', a statement keyword
+     * or the start of a class member.
+     */
+    private void synchronizeStatement() throws IOException {
+        if (!recovering) {
+            return;
+        }
+        while (currentType != null && !isSymbol('}') && !isStatementKeyword() && !isMemberKeyword()) {
+            boolean semicolon = isSymbol(';');
+            nextToken();
+            if (semicolon) {
+                break;
+            }
+        }
+        recovering = false;
+    }
+
+    /**
+     * Skips tokens after an error until a class member starts, or until the last '}' of the class.
+     */
+    private void synchronizeMember() throws IOException {
+        if (!recovering) {
+            return;
+        }
+        while (currentType != null && !isMemberKeyword() && !(isSymbol('}') && !tokenizer.hasMoreTokens())) {
+            nextToken();
+        }
+        recovering = false;
+    }
+
+    /**
+     * @returns true if the current token starts a statement.
+     */
+    private boolean isStatementKeyword() {
+        if (currentType != TokenType.KEYWORD) {
+            return false;
+        }
+        switch (tokenizer.keyWord()) {
+            case LET:
+            case IF:
+            case WHILE:
+            case DO:
+            case RETURN:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @returns true if the current token starts a class variable or subroutine declaration.
+     */
+    private boolean isMemberKeyword() {
+        if (currentType != TokenType.KEYWORD) {
+            return false;
+        }
+        switch (tokenizer.keyWord()) {
+            case STATIC:
+            case FIELD:
+            case CONSTRUCTOR:
+            case FUNCTION:
+            case METHOD:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Reports a syntax error, unless the parser is still recovering from an earlier error.
+     *
+     * @param expected what the grammar expects at the current token, or null
+     * @throws ErrorLimitException if the error limit of the diagnostics is reached
+     */
+    private void error(String message, String expected) {
+        if (recovering) {
+            return;
+        }
+        recovering = true;
+        errorCount++;
+        diagnostics.report(tokenizer.line(), tokenizer.column(), ERROR_MESSAGE + message, expected, describeToken());
+        if (diagnostics.isLimitReached()) {
+            throw new ErrorLimitException();
+        }
+    }
+
+    /**
+     * Step that continues a suspended rule of an expression after its inner rule.
+     */
+    private enum PendingStep {
+        // expression: an operator and a term may follow
+        OPERATOR,
+        // expressionList: a ',' and an expression may follow
+        SEPARATOR,
+        // term: unaryOp term
+        CLOSE_TERM,
+        // term: '(' expression ')' or subroutineCall
+        CLOSE_PARENTHESIS,
+        // term: varName '[' expression ']'
+        CLOSE_BRACKET
+    }
+
+    /**
+     * Stops parsing when the error limit is reached.
+     */
+    private static class ErrorLimitException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ErrorLimitException() {
+            super(null, null, false, false);
         }
-        eat(token);
     }
 
 }
@@ -0,0 +1,70 @@
+/**
+ * One lexical or syntax error with its position in the source code.
+ */
+public class Diagnostic {
+    private final String fileName;
+    private final int line;
+    private final int column;
+    private final String message;
+    private final String expected;
+    private final String actual;
+
+    /**
+     * @param fileName .jack file, or null if unknown
+     * @param line     line of the error starting at 1, or 0 if unknown
+     * @param column   column of the error starting at 1, or 0 if unknown
+     * @param message  description of the error
+     * @param expected what the grammar expects at this position, or null
+     * @param actual   the token that was found, or null
+     */
+    public Diagnostic(String fileName, int line, int column, String message, String expected, String actual) {
+        this.fileName = fileName;
+        this.line = line;
+        this.column = column;
+        this.message = message;
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getExpected() {
+        return expected;
+    }
+
+    public String getActual() {
+        return actual;
+    }
+
+    /**
+     * @returns the error as 'file:line:column: message', without the parts that are unknown.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        if (fileName != null) {
+            text.append(fileName).append(':');
+        }
+        if (line > 0) {
+            text.append(line).append(':').append(column).append(':');
+        }
+        if (text.length() > 0) {
+            text.append(' ');
+        }
+        return text.append(message).toString();
+    }
+}
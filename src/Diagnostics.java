@@ -0,0 +1,108 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the errors of one class from the JackTokenizer and the CompilationEngine.
+ * <p>
+ * Only the first errors are kept, so that a badly broken file does not fill the memory. All errors are counted.
+ * With an error limit, the CompilationEngine stops parsing as soon as the limit is reached.
+ */
+public class Diagnostics {
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private final String fileName;
+    private final int capacity;
+    private final int errorLimit;
+    private final List<Diagnostic> diagnostics;
+    private int errorCount;
+    private PrintStream echo;
+
+    /**
+     * Creates diagnostics that keep DEFAULT_CAPACITY errors and have no error limit.
+     *
+     * @param fileName .jack file for the messages, or null
+     */
+    public Diagnostics(String fileName) {
+        this(fileName, DEFAULT_CAPACITY, 0);
+    }
+
+    /**
+     * @param fileName   .jack file for the messages, or null
+     * @param capacity   number of errors that are kept
+     * @param errorLimit number of errors after which parsing stops, 0 for no limit
+     */
+    public Diagnostics(String fileName, int capacity, int errorLimit) {
+        this.fileName = fileName;
+        this.capacity = capacity;
+        this.errorLimit = errorLimit;
+        diagnostics = new ArrayList<>();
+        errorCount = 0;
+        echo = null;
+    }
+
+    /**
+     * @param echo stream on which each kept error is printed as soon as it is reported, or null
+     */
+    public Diagnostics setEcho(PrintStream echo) {
+        this.echo = echo;
+        return this;
+    }
+
+    /**
+     * Reports an error.
+     *
+     * @param line     line of the error starting at 1, or 0 if unknown
+     * @param column   column of the error starting at 1, or 0 if unknown
+     * @param message  description of the error
+     * @param expected what the grammar expects at this position, or null
+     * @param actual   the token that was found, or null
+     */
+    public void report(int line, int column, String message, String expected, String actual) {
+        errorCount++;
+        if (diagnostics.size() < capacity) {
+            Diagnostic diagnostic = new Diagnostic(fileName, line, column, message, expected, actual);
+            diagnostics.add(diagnostic);
+            if (echo != null) {
+                echo.println(diagnostic);
+            }
+        }
+    }
+
+    /**
+     * @returns the number of all reported errors, including those that were not kept.
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @returns true if the error limit is reached and parsing should stop.
+     */
+    public boolean isLimitReached() {
+        return errorLimit > 0 && errorCount >= errorLimit;
+    }
+
+    /**
+     * @returns the kept errors in the order in which they were reported.
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return Collections.unmodifiableList(diagnostics);
+    }
+
+    /**
+     * Prints the kept errors, one per line, and the number of errors that were not kept.
+     */
+    public void print(PrintStream output) {
+        for (Diagnostic diagnostic : diagnostics) {
+            output.println(diagnostic);
+        }
+        if (errorCount > diagnostics.size()) {
+            output.println("... " + (errorCount - diagnostics.size()) + " more errors in " + (fileName != null ? fileName : "this class"));
+        }
+        if (isLimitReached()) {
+            output.println("Stopped after " + errorLimit + " errors");
+        }
+    }
+}
@@ -0,0 +1,465 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the parsing tree of a class that is being edited, e.g. in an editor, and after an edit parses only the
+ * member of the class that was changed.
+ * <p>
+ * The class is split into its members, i.e. classVarDecs and subroutineDecs, by counting braces, and each member
+ * is parsed on its own into a ParseTree. A member starts with a keyword and ends with ';' or '}', so the tokenizer
+ * is between two tokens at both ends. An edit inside a member is therefore handled by tokenizing and parsing only
+ * the new text of that member. The trees of the other members are reused and the following members are moved.
+ * <p>
+ * The whole class is parsed again, like by JackAnalyzer, if the edit is not inside one member, if the edited text is
+ * not exactly one member anymore, or if the class has any errors. The tree and the diagnostics are therefore always
+ * the same as those of a complete analysis.
+ */
+public class IncrementalParser {
+    private final String fileName;
+    private final StringBuilder source;
+    private final List<Member> members;
+
+    // name of the class if it is split into members, null if every edit parses the whole class
+    private String className;
+    // tree of the whole class if the class has errors, null if the tree consists of the member trees
+    private ParseTree classTree;
+    private Diagnostics diagnostics;
+
+    /**
+     * Parses the whole class.
+     *
+     * @param fileName .jack file for the messages, or null
+     * @param source   source code of the class
+     */
+    public IncrementalParser(String fileName, String source) throws IOException {
+        this.fileName = fileName;
+        this.source = new StringBuilder(source);
+        members = new ArrayList<>();
+        parseAll();
+    }
+
+    /**
+     * Replaces a part of the source code and updates the parsing tree.
+     *
+     * @param offset      index of the first replaced character
+     * @param length      number of replaced characters, 0 to insert
+     * @param replacement new text, empty to delete
+     * @returns true if only the edited member was parsed again, false if the whole class was parsed.
+     * @throws IndexOutOfBoundsException if the replaced part is not inside the source code
+     */
+    public boolean edit(int offset, int length, String replacement) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > source.length()) {
+            throw new IndexOutOfBoundsException("Edit " + offset + "+" + length + " outside of " + source.length() + " characters");
+        }
+        source.replace(offset, offset + length, replacement);
+        int delta = replacement.length() - length;
+
+        int index = className != null ? memberAt(offset, offset + length) : -1;
+        if (index >= 0) {
+            Member member = members.get(index);
+            Member edited = parseMember(member.start, member.end + delta);
+            if (edited != null) {
+                members.set(index, edited);
+                for (int i = index + 1; i < members.size(); i++) {
+                    members.get(i).start += delta;
+                    members.get(i).end += delta;
+                }
+                if (isValid()) {
+                    classTree = null;
+                    diagnostics = new Diagnostics(fileName);
+                    return true;
+                }
+            }
+        }
+        parseAll();
+        return false;
+    }
+
+    /**
+     * @returns the current source code.
+     */
+    public String getSource() {
+        return source.toString();
+    }
+
+    /**
+     * @returns the errors of the current source code.
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Reports the parsing tree of the current source code to a listener. Does not close the listener.
+     */
+    public void write(ParseListener listener) throws IOException {
+        if (classTree != null) {
+            classTree.write(listener);
+            return;
+        }
+        listener.open(NonTerminal.CLASS);
+        listener.keyword(Keyword.CLASS);
+        listener.token(TokenType.IDENTIFIER, className);
+        listener.symbol('{');
+        for (Member member : members) {
+            member.tree.write(listener);
+        }
+        listener.symbol('}');
+        listener.close(NonTerminal.CLASS);
+    }
+
+    /**
+     * Splits the class into members and parses each member. If the class has errors, it is also parsed as a whole.
+     */
+    private void parseAll() throws IOException {
+        members.clear();
+        className = null;
+        classTree = null;
+        diagnostics = new Diagnostics(fileName);
+
+        Tokens tokens = tokenize(0, source.length());
+        if (tokens.errorCount == 0) {
+            split(tokens);
+        }
+        if (className != null && isValid()) {
+            return;
+        }
+
+        classTree = new ParseTree();
+        ParserPool pool = ParserPool.current();
+        JackTokenizer jackTokenizer = pool.tokenizer(new StringReader(source.toString()), null);
+        jackTokenizer.setDiagnostics(diagnostics);
+        CompilationEngine compilationEngine = pool.engine(jackTokenizer, classTree);
+        compilationEngine.setDiagnostics(diagnostics);
+        compilationEngine.compileClass();
+        jackTokenizer.close();
+    }
+
+    /**
+     * Finds the members of a class 'class' className '{' member* '}' and parses them. Members with errors get no
+     * tree. Leaves className null if the tokens do not have this form.
+     */
+    private void split(Tokens tokens) throws IOException {
+        int size = tokens.buffer.size();
+        TokenBuffer.Cursor cursor = tokens.buffer.cursor(0, size);
+        if (size < 4 || !isToken(cursor, 0, TokenType.KEYWORD) || cursor.keyWord() != Keyword.CLASS
+                || !isToken(cursor, 1, TokenType.IDENTIFIER)) {
+            return;
+        }
+        String name = cursor.identifier();
+        if (!isSymbol(cursor, 2, '{') || !isSymbol(cursor, size - 1, '}')) {
+            return;
+        }
+
+        int[] ranges = memberRanges(tokens.buffer, 3, size - 1);
+        if (ranges == null) {
+            return;
+        }
+        for (int i = 0; i < ranges.length; i += 2) {
+            members.add(parseMember(tokens, ranges[i], ranges[i + 1]));
+        }
+        className = name;
+    }
+
+    /**
+     * Tokenizes and parses the text of an edited member.
+     *
+     * @param start offset of the text in the source code
+     * @param end   offset after the text
+     * @returns the member, or null if the text is not exactly one member.
+     */
+    private Member parseMember(int start, int end) throws IOException {
+        Tokens tokens = tokenize(start, end);
+        int size = tokens.buffer.size();
+        if (tokens.errorCount > 0 || size == 0 || !isBlank(tokens.ends[size - 1], end)) {
+            return null;
+        }
+        int[] ranges = memberRanges(tokens.buffer, 0, size);
+        if (ranges == null || ranges.length != 2) {
+            return null;
+        }
+        return parseMember(tokens, 0, size);
+    }
+
+    /**
+     * Parses the tokens from (inclusive) to (exclusive) as one member.
+     */
+    private static Member parseMember(Tokens tokens, int from, int to) throws IOException {
+        TokenBuffer.Cursor cursor = tokens.buffer.cursor(from, to);
+        cursor.advance();
+        boolean variable = cursor.keyWord() == Keyword.STATIC || cursor.keyWord() == Keyword.FIELD;
+        cursor.seek(from);
+
+        ParseTree tree = new ParseTree();
+        CompilationEngine engine = ParserPool.current().engine(cursor, tree);
+        engine.setDiagnostics(new Diagnostics(null));
+        engine.nextToken();
+        if (variable) {
+            engine.compileClassVarDec();
+        } else {
+            engine.compileSubroutineDec();
+        }
+        boolean valid = engine.getErrorCount() == 0 && engine.currentType == null;
+        return new Member(tokens.starts[from], tokens.ends[to - 1], variable, valid ? tree : null);
+    }
+
+    /**
+     * Finds the members between the tokens from (inclusive) and to (exclusive) by counting braces.
+     * A classVarDec ends with the next ';', a subroutineDec with the brace that closes its body.
+     *
+     * @returns the first token and the token after the end of each member as pairs, or null if there are tokens
+     * outside of the members.
+     */
+    private static int[] memberRanges(TokenBuffer tokens, int from, int to) throws IOException {
+        int[] ranges = new int[16];
+        int count = 0;
+        TokenBuffer.Cursor cursor = tokens.cursor(from, to);
+        int i = from;
+        while (i < to) {
+            cursor.seek(i);
+            cursor.advance();
+            if (cursor.tokenType() != TokenType.KEYWORD) {
+                return null;
+            }
+            int end;
+            switch (cursor.keyWord()) {
+                case STATIC:
+                case FIELD:
+                    end = i;
+                    while (cursor.tokenType() != TokenType.SYMBOL || cursor.symbol() != ';') {
+                        if (!cursor.hasMoreTokens()) {
+                            return null;
+                        }
+                        cursor.advance();
+                        end++;
+                    }
+                    break;
+                case CONSTRUCTOR:
+                case FUNCTION:
+                case METHOD:
+                    end = closingBrace(cursor, i);
+                    break;
+                default:
+                    return null;
+            }
+            if (end < 0) {
+                return null;
+            }
+            if (count + 2 > ranges.length) {
+                ranges = Arrays.copyOf(ranges, 2 * ranges.length);
+            }
+            ranges[count++] = i;
+            ranges[count++] = end + 1;
+            i = end + 1;
+        }
+        return Arrays.copyOf(ranges, count);
+    }
+
+    /**
+     * Advances the cursor to the brace that closes the first opened brace.
+     *
+     * @returns the index of that brace, or -1 if it is missing.
+     */
+    private static int closingBrace(TokenBuffer.Cursor cursor, int index) throws IOException {
+        int depth = 0;
+        while (true) {
+            if (cursor.tokenType() == TokenType.SYMBOL) {
+                if (cursor.symbol() == '{') {
+                    depth++;
+                } else if (cursor.symbol() == '}' && --depth == 0) {
+                    return index;
+                } else if (cursor.symbol() == '}' && depth < 0) {
+                    return -1;
+                }
+            }
+            if (!cursor.hasMoreTokens()) {
+                return -1;
+            }
+            cursor.advance();
+            index++;
+        }
+    }
+
+    /**
+     * @returns the index of the member that contains the characters from start to end, or -1.
+     */
+    private int memberAt(int start, int end) {
+        int low = 0;
+        int high = members.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Member member = members.get(middle);
+            if (member.end < start) {
+                low = middle + 1;
+            } else if (member.start > start) {
+                high = middle - 1;
+            } else {
+                return end <= member.end ? middle : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @returns true if all members were parsed without errors and the classVarDecs come before the subroutineDecs.
+     */
+    private boolean isValid() {
+        boolean subroutines = false;
+        for (Member member : members) {
+            if (member.tree == null || (member.variable && subroutines)) {
+                return false;
+            }
+            subroutines = !member.variable;
+        }
+        return true;
+    }
+
+    /**
+     * @returns true if the source code from start to end contains only white space. A comment after the last token
+     * of an edited member could continue beyond the member.
+     */
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(source.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tokenizes a part of the source code without reporting errors.
+     */
+    private Tokens tokenize(int start, int end) throws IOException {
+        Diagnostics silent = new Diagnostics(null, 0, 0);
+        JackTokenizer jackTokenizer = ParserPool.current().tokenizer(new StringReader(source.substring(start, end)), null);
+        jackTokenizer.setDiagnostics(silent);
+        Tokens tokens = new Tokens(jackTokenizer, start);
+        tokens.buffer = TokenBuffer.read(tokens);
+        tokens.errorCount = silent.getErrorCount();
+        jackTokenizer.close();
+        return tokens;
+    }
+
+    private static boolean isToken(TokenBuffer.Cursor cursor, int index, TokenType type) throws IOException {
+        cursor.seek(index);
+        cursor.advance();
+        return cursor.tokenType() == type;
+    }
+
+    private static boolean isSymbol(TokenBuffer.Cursor cursor, int index, char symbol) throws IOException {
+        return isToken(cursor, index, TokenType.SYMBOL) && cursor.symbol() == symbol;
+    }
+
+    /**
+     * A classVarDec or subroutineDec with the offsets of its first and after its last character in the source code.
+     */
+    private static class Member {
+        int start;
+        int end;
+        final boolean variable;
+        // null if the member has errors
+        final ParseTree tree;
+
+        Member(int start, int end, boolean variable, ParseTree tree) {
+            this.start = start;
+            this.end = end;
+            this.variable = variable;
+            this.tree = tree;
+        }
+    }
+
+    /**
+     * Tokens of a part of the source code with the offsets of each token in the source code.
+     * Records the offsets while TokenBuffer.read reads the tokens through it.
+     */
+    private static class Tokens implements TokenSource {
+        private final JackTokenizer tokenizer;
+        private final int offset;
+        int[] starts;
+        int[] ends;
+        int size;
+        TokenBuffer buffer;
+        int errorCount;
+
+        Tokens(JackTokenizer tokenizer, int offset) {
+            this.tokenizer = tokenizer;
+            this.offset = offset;
+            starts = new int[64];
+            ends = new int[64];
+            size = 0;
+            buffer = null;
+            errorCount = 0;
+        }
+
+        @Override
+        public boolean hasMoreTokens() throws IOException {
+            return tokenizer.hasMoreTokens();
+        }
+
+        @Override
+        public void advance() throws IOException {
+            tokenizer.advance();
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * size);
+                ends = Arrays.copyOf(ends, 2 * size);
+            }
+            starts[size] = offset + (int) tokenizer.tokenStart();
+            ends[size] = offset + (int) tokenizer.tokenEnd();
+            size++;
+        }
+
+        @Override
+        public TokenType tokenType() {
+            return tokenizer.tokenType();
+        }
+
+        @Override
+        public Keyword keyWord() {
+            return tokenizer.keyWord();
+        }
+
+        @Override
+        public char symbol() {
+            return tokenizer.symbol();
+        }
+
+        @Override
+        public String identifier() {
+            return tokenizer.identifier();
+        }
+
+        @Override
+        public int intVal() {
+            return tokenizer.intVal();
+        }
+
+        @Override
+        public String intText() {
+            return tokenizer.intText();
+        }
+
+        @Override
+        public String stringVal() {
+            return tokenizer.stringVal();
+        }
+
+        @Override
+        public int line() {
+            return tokenizer.line();
+        }
+
+        @Override
+        public int column() {
+            return tokenizer.column();
+        }
+
+        @Override
+        public void close() throws IOException {
+            tokenizer.close();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the ClassIndex of a class from the parsing tree: the class name from 'class', the variables from
+ * 'classVarDec', the subroutines from 'subroutineDec' and the calls from the subroutineCall tokens of 'doStatement'
+ * and 'term'. Runs as additional listener of the CompilationEngine while the class is parsed.
+ * <p>
+ * The positions are taken from the token source that the engine passes to token(TokenSource). Trees that are
+ * replayed from a ParseTree, e.g. by the ParallelCompilationEngine, have no positions.
+ * <p>
+ * Variables are only tracked by their declared types, so that calls on variables can be resolved to their class.
+ * Classes with syntax errors are indexed as far as the tree is complete.
+ */
+public class IndexBuilder implements ParseListener {
+    /**
+     * States of a possible subroutine call at the start of a 'doStatement' or 'term'.
+     */
+    private static final int NO_CALL = 0;
+    private static final int START = 1;
+    private static final int NAME = 2;
+    private static final int DOT = 3;
+    private static final int QUALIFIED_NAME = 4;
+
+    private final ClassIndex index;
+    private final Map<String, String> fieldTypes;
+    private final Map<String, String> localTypes;
+
+    private NonTerminal[] openRules;
+    private int depth;
+    private int tokenCount;
+    private ClassIndex.Kind kind;
+    private String type;
+    private String subroutine;
+
+    private int callState;
+    private String qualifier;
+    private String name;
+    private int callLine;
+    private int callColumn;
+
+    private int line;
+    private int column;
+
+    /**
+     * @param jackFile .jack file of the class
+     */
+    public IndexBuilder(File jackFile) {
+        index = new ClassIndex(jackFile.getAbsolutePath());
+        fieldTypes = new HashMap<>();
+        localTypes = new HashMap<>();
+        openRules = new NonTerminal[16];
+        depth = 0;
+        tokenCount = 0;
+        kind = null;
+        type = null;
+        subroutine = "";
+        callState = NO_CALL;
+        qualifier = null;
+        name = null;
+        callLine = 0;
+        callColumn = 0;
+        line = 0;
+        column = 0;
+    }
+
+    /**
+     * @returns the index of the class, complete after the class was parsed.
+     */
+    public ClassIndex getClassIndex() {
+        return index;
+    }
+
+    @Override
+    public void open(NonTerminal rule) {
+        if (depth == openRules.length) {
+            openRules = Arrays.copyOf(openRules, 2 * depth);
+        }
+        openRules[depth++] = rule;
+        tokenCount = 0;
+        kind = null;
+        type = null;
+        callState = rule == NonTerminal.DO_STATEMENT || rule == NonTerminal.TERM ? START : NO_CALL;
+        if (rule == NonTerminal.SUBROUTINE_DEC) {
+            subroutine = "";
+            localTypes.clear();
+        }
+    }
+
+    @Override
+    public void close(NonTerminal rule) {
+        depth--;
+        callState = NO_CALL;
+    }
+
+    /**
+     * Remembers the position of the token while it is reported.
+     */
+    @Override
+    public void token(TokenSource tokens) {
+        line = tokens.line();
+        column = tokens.column();
+        switch (tokens.tokenType()) {
+            case KEYWORD:
+                keyword(tokens.keyWord());
+                break;
+            case SYMBOL:
+                symbol(tokens.symbol());
+                break;
+            case IDENTIFIER:
+                token(TokenType.IDENTIFIER, tokens.identifier());
+                break;
+            default:
+                token(tokens.tokenType(), null);
+                break;
+        }
+        line = 0;
+        column = 0;
+    }
+
+    @Override
+    public void keyword(Keyword keyword) {
+        if (depth == 0) {
+            return;
+        }
+        switch (openRules[depth - 1]) {
+            case CLASS_VAR_DEC:
+            case SUBROUTINE_DEC:
+                if (tokenCount == 0) {
+                    kind = kind(keyword);
+                } else if (tokenCount == 1) {
+                    type = keyword.text();
+                }
+                break;
+            case PARAMETER_LIST:
+            case VAR_DEC:
+                if (type == null && keyword != Keyword.VAR) {
+                    type = keyword.text();
+                }
+                break;
+            case DO_STATEMENT:
+                if (keyword != Keyword.DO) {
+                    callState = NO_CALL;
+                }
+                break;
+            default:
+                callState = NO_CALL;
+                break;
+        }
+        tokenCount++;
+    }
+
+    @Override
+    public void symbol(char symbol) {
+        if (depth == 0) {
+            return;
+        }
+        NonTerminal rule = openRules[depth - 1];
+        if (rule == NonTerminal.PARAMETER_LIST && symbol == ',') {
+            type = null;
+        } else if (callState == NAME && symbol == '.') {
+            callState = DOT;
+        } else if ((callState == NAME || callState == QUALIFIED_NAME) && symbol == '(') {
+            addCall();
+        } else {
+            callState = NO_CALL;
+        }
+        tokenCount++;
+    }
+
+    @Override
+    public void token(TokenType tokenType, String text) {
+        if (depth == 0) {
+            return;
+        }
+        if (tokenType != TokenType.IDENTIFIER) {
+            callState = NO_CALL;
+            tokenCount++;
+            return;
+        }
+        switch (openRules[depth - 1]) {
+            case CLASS:
+                if (index.getClassName().isEmpty()) {
+                    index.setClassName(text);
+                    index.addSymbol(ClassIndex.Kind.CLASS, text, "", line, column);
+                }
+                break;
+            case CLASS_VAR_DEC:
+                if (tokenCount == 1) {
+                    type = text;
+                } else if (kind != null && type != null) {
+                    index.addSymbol(kind, text, type, line, column);
+                    fieldTypes.put(text, type);
+                }
+                break;
+            case SUBROUTINE_DEC:
+                if (tokenCount == 1) {
+                    type = text;
+                } else if (tokenCount == 2 && kind != null && type != null) {
+                    subroutine = text;
+                    index.addSymbol(kind, text, type, line, column);
+                }
+                break;
+            case PARAMETER_LIST:
+            case VAR_DEC:
+                if (type == null) {
+                    type = text;
+                } else {
+                    localTypes.put(text, type);
+                }
+                break;
+            case DO_STATEMENT:
+            case TERM:
+                if (callState == START) {
+                    name = text;
+                    callLine = line;
+                    callColumn = column;
+                    callState = NAME;
+                } else if (callState == DOT) {
+                    qualifier = name;
+                    name = text;
+                    callState = QUALIFIED_NAME;
+                } else {
+                    callState = NO_CALL;
+                }
+                break;
+            default:
+                break;
+        }
+        tokenCount++;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Adds the call whose '(' is the current token. The position of the call is that of its first identifier.
+     */
+    private void addCall() {
+        String className = index.getClassName();
+        if (callState == QUALIFIED_NAME) {
+            String variableType = localTypes.get(qualifier);
+            if (variableType == null) {
+                variableType = fieldTypes.get(qualifier);
+            }
+            className = variableType != null ? variableType : qualifier;
+        }
+        index.addCall(subroutine, className, name, callLine, callColumn);
+        callState = NO_CALL;
+    }
+
+    /**
+     * @returns the kind of a declaration that starts with the keyword, or null for other keywords.
+     */
+    private static ClassIndex.Kind kind(Keyword keyword) {
+        switch (keyword) {
+            case STATIC:
+                return ClassIndex.Kind.STATIC;
+            case FIELD:
+                return ClassIndex.Kind.FIELD;
+            case CONSTRUCTOR:
+                return ClassIndex.Kind.CONSTRUCTOR;
+            case FUNCTION:
+                return ClassIndex.Kind.FUNCTION;
+            case METHOD:
+                return ClassIndex.Kind.METHOD;
+            default:
+                return null;
+        }
+    }
+}
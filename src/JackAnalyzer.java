@@ -1,54 +1,324 @@
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * Input:   name.jack file(s) that contain(s) Jack classes
- * Output:  nameT.xml file(s) that contain(s) all tokens from .jack files (intermediate result)
- *          name.xml file(s) that contain(s) the parsing tree.
+ * Output:  nameT.xml or nameT.jtk file(s) that contain(s) all tokens from .jack files (optional intermediate result)
+ *          name.xml file(s) that contain(s) the parsing tree, and the same tree in the other selected OutputFormats.
+ * <p>
+ * The classes of a directory are independent of each other and are analyzed in parallel.
+ * Messages are printed per class in the order of the file names.
  */
 public class JackAnalyzer {
+    /**
+     * Version of the analyzer. Must be changed whenever the output changes, because it is part of the cache key.
+     */
+    public static final String VERSION = "1.3";
 
-    public static void main(String[] args) throws IOException {
-        String pathName = "test/Example/Main";
-        File file = new File(pathName);
-
-        if (file.isDirectory()) {
-            File[] files = file.listFiles();
-            assert files != null;
-            for (File f : files) {
-                if (f.getName().endsWith(".jack")) {
-                    String fileName = pathName + f.getName().substring(0, f.getName().length() - 5);
-
-                    FileReader fileReader = new FileReader(f);
-                    FileWriter outputTokenizer = new FileWriter(fileName + "T.xml");
-                    JackTokenizer jackTokenizer = new JackTokenizer(fileReader, outputTokenizer);
-                    jackTokenizer.advance();
-                    System.out.println("Tokenizer completed class '" + fileName + "'");
-
-                    FileReader tokenizedFile = new FileReader(fileName + "T.xml");
-                    FileWriter output = new FileWriter(fileName + ".xml");
-                    CompilationEngine compilationEngine = new CompilationEngine(tokenizedFile, output);
-                    compilationEngine.compileClass();
-                    System.out.println("Parser completed class '" + fileName + "'");
-                }
+    /**
+     * Analyzes the classes given on the command line, see CommandLine.USAGE.
+     * Exits with status 1 if a class has errors and with status 2 if the arguments are invalid.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        CommandLine commandLine;
+        try {
+            commandLine = CommandLine.parse(args, new InputStreamReader(System.in));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(CommandLine.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (commandLine.isHelp()) {
+            System.out.println(CommandLine.USAGE);
+            return;
+        }
+        AnalyzerOptions options = commandLine.getOptions();
 
+        if (commandLine.isServer()) {
+            AnalysisServer server = new AnalysisServer(commandLine.getServerPort(), options.getThreads(), options);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            System.out.println("Jack Syntax Analyzer listening on http://localhost:" + server.getPort() + "/");
+            return;
+        }
+
+        if (commandLine.isWatch()) {
+            try (JackWatcher watcher = new JackWatcher(new File(commandLine.getPaths().get(0)), options)) {
+                watcher.watch();
             }
+            return;
+        }
+
+        Map<File, String> classes = commandLine.findClasses();
+        long start = System.nanoTime();
+        List<AnalysisResult> results = analyzeAll(new ArrayList<>(classes.keySet()), new ArrayList<>(classes.values()), options);
+        long wallNanos = System.nanoTime() - start;
+        if (options.getCache() != null) {
+            options.getCache().save();
+        }
+        if (options.getIndex() != null) {
+            options.getIndex().save();
+        }
+
+        int failedClasses = printResults(results);
+        if (commandLine.getMetricsFile() != null) {
+            writeMetrics(new MetricsReport(results, wallNanos), commandLine.getMetricsFile());
+        }
+        if (failedClasses > 0) {
+            System.out.println("Jack Syntax Analyzer completed with errors in " + failedClasses + " of " + results.size() + " classes");
+            System.exit(1);
+        }
+        System.out.println("Jack Syntax Analyzer completed " + results.size() + " classes");
+    }
+
+    /**
+     * Writes the report to the file, or to the standard output if the file name is "-".
+     */
+    private static void writeMetrics(MetricsReport report, String metricsFile) throws IOException {
+        if (metricsFile.equals("-")) {
+            report.write(new OutputStreamWriter(System.out));
         } else {
-            FileReader inputFile = new FileReader(file + ".jack");
-            FileWriter outputTokenizer = new FileWriter(file + "T.xml");
-            JackTokenizer jackTokenizer = new JackTokenizer(inputFile, outputTokenizer);
-            jackTokenizer.advance();
-            System.out.println("Tokenizer completed class '" + file + "'");
-
-            FileReader tokenizedFile = new FileReader(file + "T.xml");
-            FileWriter output = new FileWriter(file + ".xml");
-            CompilationEngine compilationEngine = new CompilationEngine(tokenizedFile, output);
+            try (Writer output = new FileWriter(metricsFile)) {
+                report.write(output);
+            }
+        }
+    }
+
+    /**
+     * Prints the messages and the status of all classes in the order of the results.
+     *
+     * @returns the number of classes with errors.
+     */
+    public static int printResults(List<AnalysisResult> results) {
+        int failedClasses = 0;
+        for (AnalysisResult result : results) {
+            System.out.print(result.getMessages());
+            if (result.isSuccessful()) {
+                System.out.println("OK     " + result.getFileName());
+            } else {
+                System.out.println("FAILED " + result.getFileName() + " (" + result.getErrorCount() + " errors)");
+                failedClasses++;
+            }
+        }
+        return failedClasses;
+    }
+
+    /**
+     * Analyzes the classes on a pool of worker threads, or in an AnalysisPipeline if enabled in the options.
+     *
+     * @param jackFiles .jack files with source code
+     * @param fileNames output paths without extension, one per .jack file
+     * @param options   settings of the analyzer, including the number of worker threads
+     * @returns the results in the same order as the given files.
+     */
+    public static List<AnalysisResult> analyzeAll(List<File> jackFiles, List<String> fileNames, AnalyzerOptions options)
+            throws InterruptedException {
+        if (options.isPipeline()) {
+            return AnalysisPipeline.analyzeAll(jackFiles, fileNames, options);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(options.getThreads(), jackFiles.size())));
+        try {
+            List<Future<AnalysisResult>> futures = new ArrayList<>();
+            for (int i = 0; i < jackFiles.size(); i++) {
+                File jackFile = jackFiles.get(i);
+                String fileName = fileNames.get(i);
+                futures.add(executor.submit(() -> analyze(jackFile, fileName, options)));
+            }
+
+            List<AnalysisResult> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    AnalysisResult result = new AnalysisResult(fileNames.get(i));
+                    result.addFailure(e.getCause());
+                    results.add(result);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tokenizes and parses one class. The parser pulls the tokens from the tokenizer one at a time.
+     * The tokenizer and the parser of the current thread are reused, see ParserPool.
+     * Large files are memory-mapped, see AnalyzerOptions.getMapThreshold. With parallel parsing, all tokens are read
+     * first and the subroutines are parsed on the common ForkJoinPool, which is separate from the pool of analyzeAll.
+     * With a cache, the class is skipped if neither its source code nor its output files have changed.
+     * With an index, the index of the class is replaced by the declarations and calls found while parsing.
+     * Unexpected failures, e.g. a StackOverflowError, are reported in the result like an unreadable file, so that
+     * the other classes are analyzed anyway.
+     * <p>
+     * If metrics are collected or a flight recording includes AnalysisPhaseEvent, the phases run one after another
+     * with the same results, see AnalysisPipeline.analyze. Otherwise only the ClassAnalysisEvent of the class is
+     * reported.
+     *
+     * @param jackFile .jack file with source code
+     * @param fileName output path without extension
+     * @param options  settings of the analyzer
+     */
+    public static AnalysisResult analyze(File jackFile, String fileName, AnalyzerOptions options) {
+        if (options.isMetrics() || new AnalysisPhaseEvent().isEnabled()) {
+            return AnalysisPipeline.analyze(jackFile, fileName, options);
+        }
+        ClassAnalysisEvent event = new ClassAnalysisEvent();
+        event.begin();
+        AnalysisResult result = new AnalysisResult(fileName);
+        AnalysisCache cache = options.getCache();
+        JackIndex index = options.getIndex();
+        IndexBuilder indexBuilder = index != null ? new IndexBuilder(jackFile) : null;
+        String hash = null;
+        Reader inputFile = null;
+        ParseListener outputTokenizer = null;
+        ParseListener listener = null;
+        boolean closed = false;
+        try {
+            long length = jackFile.length();
+            result.getMetrics().setBytesIn(length);
+            boolean mapped = length >= options.getMapThreshold() && length <= Integer.MAX_VALUE;
+            if (mapped || cache != null) {
+                ByteBuffer source = mapped ? MappedSourceReader.map(jackFile) : ByteBuffer.wrap(Files.readAllBytes(jackFile.toPath()));
+                if (cache != null) {
+                    hash = AnalysisCache.hash(source, options);
+                    if (isUpToDate(jackFile, hash, fileName, options)) {
+                        result.getLog().println("Skipped unchanged class '" + fileName + "'");
+                        return result;
+                    }
+                }
+                inputFile = mapped ? new MappedSourceReader(source) : new InputStreamReader(new ByteArrayInputStream(source.array()));
+            } else {
+                inputFile = new FileReader(jackFile);
+            }
+            outputTokenizer = options.isWriteTokenFile()
+                    ? options.getTokenFormat().createWriter(fileName + options.getTokenFormat().suffix()) : null;
+            Diagnostics diagnostics = new Diagnostics(jackFile.getPath(), Diagnostics.DEFAULT_CAPACITY, options.getMaxErrors());
+            ParserPool pool = ParserPool.current();
+            boolean parallel = options.isParallelParsing() && indexBuilder == null;
+            JackTokenizer jackTokenizer = pool.tokenizer(inputFile, parallel ? null : outputTokenizer);
+            jackTokenizer.setDiagnostics(diagnostics);
+
+            listener = createListener(fileName, options);
+            if (indexBuilder != null) {
+                listener = addListener(listener, indexBuilder);
+            }
+            CompilationEngine compilationEngine;
+            TokenSource tokenSource = jackTokenizer;
+            if (parallel) {
+                TokenBuffer tokens = TokenBuffer.tokenize(jackTokenizer);
+                result.getMetrics().setTokens(tokens.size());
+                jackTokenizer.close();
+                TokenBuffer.Cursor cursor = tokens.replay(diagnostics, outputTokenizer);
+                tokenSource = cursor;
+                compilationEngine = new ParallelCompilationEngine(tokens, cursor, listener, ForkJoinPool.commonPool());
+            } else {
+                compilationEngine = pool.engine(jackTokenizer, listener);
+            }
+            compilationEngine.setDiagnostics(diagnostics);
             compilationEngine.compileClass();
-            System.out.println("Parser completed class '" + file + "'");
+            tokenSource.close();
+            closed = true;
+            if (indexBuilder != null) {
+                index.put(indexBuilder.getClassIndex());
+            }
+            diagnostics.print(result.getLog());
+            result.addErrors(diagnostics.getErrorCount());
+            result.getLog().println("Tokenizer completed class '" + fileName + "'");
+            result.getLog().println("Parser completed class '" + fileName + "'");
+        } catch (IOException | RuntimeException | Error e) {
+            result.addFailure(e);
+            if (index != null) {
+                index.remove(jackFile);
+            }
+        } finally {
+            if (!closed) {
+                closeAfterFailure(inputFile, outputTokenizer, listener);
+            }
+        }
+
+        if (cache != null) {
+            if (result.isSuccessful()) {
+                cache.put(jackFile, hash, fileName, options);
+            } else {
+                cache.remove(jackFile);
+            }
         }
+        ClassAnalysisEvent.commit(event, result);
+        return result;
+    }
+
+    /**
+     * Closes the source file and the output files of a class that could not be analyzed. Errors while closing
+     * are ignored, because the failure of the class is already reported.
+     *
+     * @param outputs writers of the output files, null if they were not created
+     */
+    private static void closeAfterFailure(Reader inputFile, ParseListener... outputs) {
+        try {
+            if (inputFile != null) {
+                inputFile.close();
+            }
+        } catch (IOException e) {
+            // the class failed anyway
+        }
+        for (ParseListener output : outputs) {
+            try {
+                if (output != null) {
+                    output.close();
+                }
+            } catch (IOException | RuntimeException e) {
+                // the class failed anyway
+            }
+        }
+    }
+
+    /**
+     * @returns true if the cache has the class with the hash and, if an index is built, the index has the class.
+     */
+    static boolean isUpToDate(File jackFile, String hash, String fileName, AnalyzerOptions options) {
+        return options.getCache().isUpToDate(jackFile, hash, fileName)
+                && (options.getIndex() == null || options.getIndex().contains(jackFile));
+    }
 
-        System.out.println("Jack Syntax Analyzer completed");
+    /**
+     * @returns a listener that passes the events to both listeners, or only to the second one if the first one
+     * ignores them.
+     */
+    static ParseListener addListener(ParseListener listener, ParseListener other) {
+        return listener == NullListener.INSTANCE ? other : new MultiListener(Arrays.asList(listener, other));
+    }
+
+    /**
+     * @returns a listener that writes the parsing tree in all formats of the options, or ignores it when only checking.
+     */
+    static ParseListener createListener(String fileName, AnalyzerOptions options) throws IOException {
+        if (options.getFormats().isEmpty()) {
+            return NullListener.INSTANCE;
+        }
+        List<ParseListener> listeners = new ArrayList<>();
+        for (OutputFormat format : options.getFormats()) {
+            listeners.add(format.createListener(fileName, options));
+        }
+        return listeners.size() == 1 ? listeners.get(0) : new MultiListener(listeners);
     }
 }
@@ -0,0 +1,317 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Declarations and subroutine calls of all analyzed classes, so that tools can ask where a subroutine is called or
+ * which classes declare a variable without parsing the classes again. The index of a class is replaced whenever the
+ * class is analyzed, see IndexBuilder. Classes skipped by the cache keep their index.
+ * <p>
+ * The index is stored in a compact binary file:
+ * - the 4 bytes 'J' 'I' 'X' 1
+ * - the number of strings as varint, followed by each string as length of its UTF-8 bytes as varint and the bytes
+ * - the number of files as varint, followed by each file as its path, its class name, the number of declarations,
+ *   each declaration as ordinal of its ClassIndex.Kind in one byte, name, type, line and column, the number of
+ *   calls and each call as caller, class name, subroutine name, line and column
+ * All names are indices in the string table and all numbers are varints, see Varints.
+ * Entries of deleted .jack files are removed when the index is saved.
+ * <p>
+ * Queries look up the names in maps that are built once after each change of the index.
+ */
+public class JackIndex {
+    static final byte[] MAGIC = {'J', 'I', 'X', 1};
+    private static final ClassIndex.Kind[] KINDS = ClassIndex.Kind.values();
+
+    public static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: JackIndex [--index FILE] query",
+            "  calls Class.subroutine   lists the calls of the subroutine",
+            "  declarations name        lists the classes, variables and subroutines with the name",
+            "  --index FILE             index written by JackAnalyzer --index, .jackindex by default");
+
+    private final File indexFile;
+    private final Map<String, ClassIndex> classes;
+    private Map<String, List<ClassIndex.Symbol>> symbolsByName;
+    private Map<String, List<ClassIndex.Call>> callsBySubroutine;
+
+    /**
+     * Reads the index file. A missing or unreadable index file results in an empty index.
+     *
+     * @param indexFile binary file of the index
+     */
+    public JackIndex(File indexFile) {
+        this.indexFile = indexFile;
+        classes = new HashMap<>();
+        symbolsByName = null;
+        callsBySubroutine = null;
+
+        if (indexFile.isFile()) {
+            try {
+                read(Files.readAllBytes(indexFile.toPath()));
+            } catch (IOException e) {
+                classes.clear();
+            }
+        }
+    }
+
+    /**
+     * Prints the result of a query, one declaration or call per line with its position.
+     * Exits with status 1 if nothing was found and with status 2 if the arguments are invalid.
+     */
+    public static void main(String[] args) {
+        File indexFile = new File(".jackindex");
+        int i = 0;
+        if (args.length >= 2 && args[0].equals("--index")) {
+            indexFile = new File(args[1]);
+            i = 2;
+        }
+        if (args.length != i + 2 || !(args[i].equals("calls") && args[i + 1].contains(".") || args[i].equals("declarations"))) {
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (!indexFile.isFile()) {
+            System.err.println("No index file '" + indexFile + "'");
+            System.exit(2);
+            return;
+        }
+
+        JackIndex index = new JackIndex(indexFile);
+        List<String> lines = new ArrayList<>();
+        if (args[i].equals("calls")) {
+            String name = args[i + 1];
+            int dot = name.lastIndexOf('.');
+            for (ClassIndex.Call call : index.findCalls(name.substring(0, dot), name.substring(dot + 1))) {
+                lines.add(position(call.getClassIndex(), call.getLine(), call.getColumn()) + call.getClassIndex().getClassName() + "."
+                        + call.getCaller() + " calls " + call.getClassName() + "." + call.getSubroutineName());
+            }
+        } else {
+            for (ClassIndex.Symbol symbol : index.findDeclarations(args[i + 1])) {
+                String kind = symbol.getKind().name().toLowerCase(Locale.ROOT);
+                lines.add(position(symbol.getClassIndex(), symbol.getLine(), symbol.getColumn())
+                        + (symbol.getKind() == ClassIndex.Kind.CLASS ? kind + " " + symbol.getName()
+                        : kind + " " + symbol.getType() + " " + symbol.getClassIndex().getClassName() + "." + symbol.getName()));
+            }
+        }
+        for (String line : lines) {
+            System.out.println(line);
+        }
+        if (lines.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    private static String position(ClassIndex classIndex, int line, int column) {
+        return classIndex.getFile() + ":" + line + ":" + column + ": ";
+    }
+
+    /**
+     * @returns true if the index contains the class of the .jack file.
+     */
+    public synchronized boolean contains(File jackFile) {
+        return classes.containsKey(key(jackFile));
+    }
+
+    /**
+     * Replaces the index of a class, see IndexBuilder.getClassIndex.
+     */
+    public synchronized void put(ClassIndex classIndex) {
+        classes.put(classIndex.getFile(), classIndex);
+        symbolsByName = null;
+        callsBySubroutine = null;
+    }
+
+    /**
+     * Forgets a class, e.g. because it could not be read.
+     */
+    public synchronized void remove(File jackFile) {
+        if (classes.remove(key(jackFile)) != null) {
+            symbolsByName = null;
+            callsBySubroutine = null;
+        }
+    }
+
+    /**
+     * @returns the indices of all classes, in no particular order.
+     */
+    public synchronized List<ClassIndex> getClasses() {
+        return new ArrayList<>(classes.values());
+    }
+
+    /**
+     * @returns the classes, variables and subroutines with the name, sorted by file and position.
+     */
+    public synchronized List<ClassIndex.Symbol> findDeclarations(String name) {
+        if (symbolsByName == null) {
+            symbolsByName = new HashMap<>();
+            for (ClassIndex classIndex : sortedClasses()) {
+                for (ClassIndex.Symbol symbol : classIndex.getSymbols()) {
+                    symbolsByName.computeIfAbsent(symbol.getName(), key -> new ArrayList<>()).add(symbol);
+                }
+            }
+        }
+        return Collections.unmodifiableList(symbolsByName.getOrDefault(name, Collections.emptyList()));
+    }
+
+    /**
+     * @returns the calls of the subroutine of the class, sorted by file and position.
+     */
+    public synchronized List<ClassIndex.Call> findCalls(String className, String subroutineName) {
+        if (callsBySubroutine == null) {
+            callsBySubroutine = new HashMap<>();
+            for (ClassIndex classIndex : sortedClasses()) {
+                for (ClassIndex.Call call : classIndex.getCalls()) {
+                    callsBySubroutine.computeIfAbsent(call.getClassName() + "." + call.getSubroutineName(), key -> new ArrayList<>()).add(call);
+                }
+            }
+        }
+        return Collections.unmodifiableList(callsBySubroutine.getOrDefault(className + "." + subroutineName, Collections.emptyList()));
+    }
+
+    /**
+     * Removes the entries of deleted .jack files and writes the index file.
+     */
+    public synchronized void save() throws IOException {
+        classes.keySet().removeIf(file -> !new File(file).isFile());
+
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIndices = new HashMap<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        List<ClassIndex> sortedClasses = sortedClasses();
+        Varints.write(body, sortedClasses.size());
+        for (ClassIndex classIndex : sortedClasses) {
+            writeString(body, classIndex.getFile(), strings, stringIndices);
+            writeString(body, classIndex.getClassName(), strings, stringIndices);
+            Varints.write(body, classIndex.getSymbols().size());
+            for (ClassIndex.Symbol symbol : classIndex.getSymbols()) {
+                body.write(symbol.getKind().ordinal());
+                writeString(body, symbol.getName(), strings, stringIndices);
+                writeString(body, symbol.getType(), strings, stringIndices);
+                Varints.write(body, symbol.getLine());
+                Varints.write(body, symbol.getColumn());
+            }
+            Varints.write(body, classIndex.getCalls().size());
+            for (ClassIndex.Call call : classIndex.getCalls()) {
+                writeString(body, call.getCaller(), strings, stringIndices);
+                writeString(body, call.getClassName(), strings, stringIndices);
+                writeString(body, call.getSubroutineName(), strings, stringIndices);
+                Varints.write(body, call.getLine());
+                Varints.write(body, call.getColumn());
+            }
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        header.write(MAGIC);
+        Varints.write(header, strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            Varints.write(header, bytes.length);
+            header.write(bytes);
+        }
+
+        File directory = indexFile.getAbsoluteFile().getParentFile();
+        File temporaryFile = File.createTempFile(indexFile.getName(), ".tmp", directory);
+        try (FileOutputStream output = new FileOutputStream(temporaryFile)) {
+            header.writeTo(output);
+            body.writeTo(output);
+        }
+        Files.move(temporaryFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @returns the classes sorted by file, so that the file and the results of queries do not depend on the order
+     * in which the classes were analyzed.
+     */
+    private List<ClassIndex> sortedClasses() {
+        List<ClassIndex> sortedClasses = new ArrayList<>(classes.values());
+        sortedClasses.sort((first, second) -> first.getFile().compareTo(second.getFile()));
+        return sortedClasses;
+    }
+
+    private void read(byte[] data) throws IOException {
+        if (data.length < MAGIC.length || !Arrays.equals(data, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new IOException("Not an index file");
+        }
+        int[] position = {MAGIC.length};
+        String[] strings = new String[readCount(data, position)];
+        for (int i = 0; i < strings.length; i++) {
+            int length = readCount(data, position);
+            strings[i] = new String(data, position[0], length, StandardCharsets.UTF_8);
+            position[0] += length;
+        }
+
+        int classCount = readCount(data, position);
+        for (int i = 0; i < classCount; i++) {
+            ClassIndex classIndex = new ClassIndex(readString(data, position, strings));
+            classIndex.setClassName(readString(data, position, strings));
+            int symbolCount = readCount(data, position);
+            for (int j = 0; j < symbolCount; j++) {
+                if (position[0] >= data.length || data[position[0]] < 0 || data[position[0]] >= KINDS.length) {
+                    throw new IOException("Corrupt index file");
+                }
+                ClassIndex.Kind kind = KINDS[data[position[0]++]];
+                String name = readString(data, position, strings);
+                String type = readString(data, position, strings);
+                classIndex.addSymbol(kind, name, type, Varints.read(data, position), Varints.read(data, position));
+            }
+            int callCount = readCount(data, position);
+            for (int j = 0; j < callCount; j++) {
+                String caller = readString(data, position, strings);
+                String className = readString(data, position, strings);
+                String subroutineName = readString(data, position, strings);
+                classIndex.addCall(caller, className, subroutineName, Varints.read(data, position), Varints.read(data, position));
+            }
+            classes.put(classIndex.getFile(), classIndex);
+        }
+    }
+
+    /**
+     * Reads the number of strings, entries or bytes that follow. Each of them takes at least one byte, so a count
+     * larger than the rest of the data can only come from a corrupt file.
+     */
+    private static int readCount(byte[] data, int[] position) throws IOException {
+        int count = Varints.read(data, position);
+        if (count < 0 || count > data.length - position[0]) {
+            throw new IOException("Corrupt index file");
+        }
+        return count;
+    }
+
+    /**
+     * Reads the index of a string in the string table.
+     */
+    private static String readString(byte[] data, int[] position, String[] strings) throws IOException {
+        int index = Varints.read(data, position);
+        if (index < 0 || index >= strings.length) {
+            throw new IOException("Corrupt index file");
+        }
+        return strings[index];
+    }
+
+    /**
+     * Writes the index of the string in the string table, and adds the string to the table if it is new.
+     */
+    private static void writeString(ByteArrayOutputStream output, String string, List<String> strings, Map<String, Integer> stringIndices) {
+        Integer index = stringIndices.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.add(string);
+            stringIndices.put(string, index);
+        }
+        Varints.write(output, index);
+    }
+
+    private static String key(File jackFile) {
+        return jackFile.getAbsolutePath();
+    }
+}
@@ -1,7 +1,7 @@
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
 
 /**
  * Implements the lexical elements of the Jack grammar.
@@ -9,149 +9,394 @@ import java.util.Scanner;
  * - Getting the value and type of the current token
  * - Ignoring white space and comments
  * Output <, >, ", and & as &lt, &gt, &quot, and &amp since they have special meaning in XML
+ * <p>
+ * The input is read into a reusable character buffer. Tokens are located by offsets into this buffer and
+ * only identifiers, integer and string constants are turned into strings.
+ * <p>
+ * A tokenizer can be reset onto the next class, so that the buffer is reused, see ParserPool.
  */
-public class JackTokenizer {
-    FileWriter outputFile;
-    Scanner scanner;
+public class JackTokenizer implements TokenSource {
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * A buffer that grew beyond this size for a very long token is not kept by reset.
+     */
+    private static final int MAX_REUSED_BUFFER_SIZE = 64 * BUFFER_SIZE;
+
+    /**
+     * Largest integer constant of the Jack language.
+     */
+    static final int MAX_INT_CONST = 32767;
+
+    ParseListener tokenOutput;
+    Reader input;
+    Diagnostics diagnostics;
+    int errorCount;
+
+    char[] buffer;
+    int position;
+    int limit;
+
+    // position in the input: characters before the buffer, current line, offset of the start of the current line
+    long bufferOffset;
+    int line;
+    long lineStart;
+    int tokenLine;
+    int tokenColumn;
+    long tokenStart;
+    long tokenEnd;
+
+    TokenType currentType;
+    Keyword currentKeyword;
+    char currentSymbol;
+    String currentToken;
+    int currentIntValue;
 
     /**
      * @param inputFile  .jack file with source code
-     * @param outputFile .xml file with all tokens
+     * @param outputFile .xml file with all tokens, or null if no token file should be written
      */
-    public JackTokenizer(FileReader inputFile, FileWriter outputFile) {
-        this.outputFile = outputFile;
-        scanner = new Scanner(inputFile);
+    public JackTokenizer(Reader inputFile, Writer outputFile) throws IOException {
+        this(inputFile, outputFile != null ? new XmlWriter(outputFile) : null);
     }
 
     /**
-     * Groups characters into tokens and finds type of token.
-     * Gets the next token from the input, and makes it the current token.
-     * Should be called only if hasMoreTokens() is true.
+     * @param inputFile   .jack file with source code
+     * @param tokenOutput writer of the token file, e.g. an XmlWriter or a BinaryTokenWriter,
+     *                    or null if no token file should be written
      */
-    public void advance() throws IOException {
+    public JackTokenizer(Reader inputFile, ParseListener tokenOutput) throws IOException {
+        buffer = new char[BUFFER_SIZE];
+        reset(inputFile, tokenOutput);
+    }
 
-        outputFile.write("<tokens>\n");
+    /**
+     * @param inputFile .jack file with source code
+     */
+    public JackTokenizer(Reader inputFile) throws IOException {
+        this(inputFile, (ParseListener) null);
+    }
 
-        String currentToken = "";
-        String currentTokenWithSpaces = "";
-        boolean isMultiLineComment = false;
+    /**
+     * Starts tokenizing another class with the same buffer. The previous input should be closed.
+     * The diagnostics are reset to the default, call setDiagnostics for the new class.
+     *
+     * @param inputFile   .jack file with source code
+     * @param tokenOutput writer of the token file, or null if no token file should be written
+     */
+    public void reset(Reader inputFile, ParseListener tokenOutput) throws IOException {
+        this.tokenOutput = tokenOutput;
+        input = inputFile;
+        if (buffer.length > MAX_REUSED_BUFFER_SIZE) {
+            buffer = new char[BUFFER_SIZE];
+        }
+        position = 0;
+        limit = 0;
+        diagnostics = new Diagnostics(null).setEcho(System.out);
+        errorCount = 0;
+        bufferOffset = 0;
+        line = 1;
+        lineStart = 0;
+        tokenLine = 0;
+        tokenColumn = 0;
+        tokenStart = 0;
+        tokenEnd = 0;
+        currentType = null;
+        currentKeyword = null;
+        currentToken = null;
+        currentIntValue = 0;
 
-        // Loop through file
-        while (scanner.hasNextLine()) {
+        if (tokenOutput != null) {
+            tokenOutput.open(NonTerminal.TOKENS);
+        }
+    }
 
-            String line = scanner.nextLine().trim();
+    /**
+     * Skips white space and comments. Characters that cannot start a token are reported as lexical errors and
+     * skipped as well, so that advance always finds a token.
+     *
+     * @returns true if there are more tokens in the input.
+     */
+    @Override
+    public boolean hasMoreTokens() throws IOException {
+        while (true) {
+            int c = charAt(0);
+            if (c < 0) {
+                return false;
+            } else if (Character.isWhitespace(c)) {
+                position++;
+                if (c == '\n') {
+                    newLine();
+                }
+            } else if (c == '/' && charAt(1) == '/') {
+                // '//' comment until end of line
+                position += 2;
+                while ((c = charAt(0)) >= 0 && c != '\n') {
+                    position++;
+                }
+            } else if (c == '/' && charAt(1) == '*') {
+                // '/*' or '/**' comment, possibly over several lines
+                position += 2;
+                while ((c = charAt(0)) >= 0 && !(c == '*' && charAt(1) == '/')) {
+                    position++;
+                    if (c == '\n') {
+                        newLine();
+                    }
+                }
+                position = Math.min(position + 2, limit);
+            } else if (c == '"' || isSymbol((char) c) || isDigit(c) || isIdentifierStart(c)) {
+                return true;
+            } else {
+                error("Token type unknown: " + (char) c);
+                position++;
+            }
+        }
+    }
 
-            if (line.startsWith("/**") && !line.endsWith("*/")){
-                isMultiLineComment = true;
+    /**
+     * Groups characters into tokens and finds type of token.
+     * Gets the next token from the input, and makes it the current token.
+     * Should be called only if hasMoreTokens() is true. At the end of the input there is no current token and
+     * tokenType returns null.
+     */
+    @Override
+    public void advance() throws IOException {
+        if (!hasMoreTokens()) {
+            currentType = null;
+            currentKeyword = null;
+            currentToken = null;
+            return;
+        }
+        char c = buffer[position];
+        int length = 1;
+        currentKeyword = null;
+        tokenLine = line;
+        tokenColumn = (int) (bufferOffset + position - lineStart) + 1;
+        tokenStart = bufferOffset + position;
+
+        if (c == '"') {
+            int next;
+            while ((next = charAt(length)) >= 0 && next != '"' && next != '\n') {
+                length++;
+            }
+            if (next != '"') {
+                error("String constant not terminated: " + new String(buffer, position, length));
             }
-            if (!isMultiLineComment){
-                currentToken = "";
-                currentTokenWithSpaces = "";
+            currentType = TokenType.STRING_CONST;
+            currentToken = new String(buffer, position + 1, length - 1);
+            if (next == '"') {
+                length++;
             }
-            if (line.startsWith("*/")){
-                isMultiLineComment = false;
+        } else if (isSymbol(c)) {
+            currentType = TokenType.SYMBOL;
+            currentSymbol = c;
+        } else if (isDigit(c)) {
+            while (isDigit(charAt(length))) {
+                length++;
+            }
+            currentType = TokenType.INT_CONST;
+            currentToken = new String(buffer, position, length);
+            currentIntValue = intValue(currentToken);
+            if (currentIntValue > MAX_INT_CONST) {
+                error("Integer constant out of range 0.." + MAX_INT_CONST + ": " + currentToken);
+                currentIntValue = MAX_INT_CONST;
+            }
+        } else {
+            // identifier or keyword, hasMoreTokens has skipped all other characters
+            while (isIdentifierPart(charAt(length))) {
+                length++;
+            }
+            currentKeyword = Keyword.fromChars(buffer, position, length);
+            if (currentKeyword != null) {
+                currentType = TokenType.KEYWORD;
+                currentToken = currentKeyword.text();
+            } else {
+                currentType = TokenType.IDENTIFIER;
+                currentToken = new String(buffer, position, length);
+            }
+        }
+        position += length;
+        tokenEnd = bufferOffset + position;
+
+        if (tokenOutput != null) {
+            tokenOutput.token(this);
+        }
+    }
+
+    /**
+     * Writes the remaining tokens and the closing tag to the token file and closes the input.
+     */
+    @Override
+    public void close() throws IOException {
+        if (tokenOutput != null) {
+            while (!diagnostics.isLimitReached() && hasMoreTokens()) {
+                advance();
             }
+            tokenOutput.close(NonTerminal.TOKENS);
+            tokenOutput.close();
+        }
+        input.close();
+    }
 
-            for (int i = 0; i < line.length(); i++) {
-                char currentChar = line.charAt(i);
-                char nextChar = line.charAt(Math.min(i + 1, line.length() - 1));
-                currentToken += currentChar;
-                currentTokenWithSpaces += currentChar;
-                currentToken = currentToken.trim();
+    /**
+     * @param diagnostics collects the lexical errors, by default they are printed to System.out
+     */
+    public void setDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
 
+    @Override
+    public int line() {
+        return tokenLine;
+    }
 
+    @Override
+    public int column() {
+        return tokenColumn;
+    }
 
-                if (currentToken.length() > 0 && !isComment(currentToken)) {
-                    if (isStringVal(currentToken)) {
-                        if (currentToken.length() > 1 && currentChar == '"') {
+    /**
+     * @returns the offset of the first character of the current token in the input.
+     */
+    long tokenStart() {
+        return tokenStart;
+    }
 
-                            outputFile.write("<" + tokenType(currentToken) + ">");
-                            outputFile.write(" " + tokenValue(currentTokenWithSpaces.trim()).substring(1, currentTokenWithSpaces.trim().length() - 1) + " ");
-                            outputFile.write("</" + tokenType(currentToken) + ">");
-                            outputFile.write("\n");
+    /**
+     * @returns the offset after the last character of the current token in the input.
+     */
+    long tokenEnd() {
+        return tokenEnd;
+    }
 
-                            currentToken = "";
-                            currentTokenWithSpaces = "";
-                        }
+    /**
+     * @returns the number of lexical errors found so far.
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
 
-                    } else if (isTermination(currentChar, nextChar)) {
+    /**
+     * Reports a lexical error.
+     */
+    private void error(String message) {
+        errorCount++;
+        diagnostics.report(line, (int) (bufferOffset + position - lineStart) + 1, message, null, null);
+    }
 
-                        outputFile.write("<" + tokenType(currentToken) + ">");
-                        outputFile.write(" " + tokenValue(currentToken) + " ");
-                        outputFile.write("</" + tokenType(currentToken) + ">");
-                        outputFile.write("\n");
+    /**
+     * Starts a new line after the newline character before position.
+     */
+    private void newLine() {
+        line++;
+        lineStart = bufferOffset + position;
+    }
 
-                        currentToken = "";
-                        currentTokenWithSpaces = "";
-                    }
-                }
+    /**
+     * Makes sure that the character at position + offset is in the buffer. Refills the buffer from the input if needed.
+     *
+     * @returns the character at position + offset, or -1 at the end of the input.
+     */
+    private int charAt(int offset) throws IOException {
+        while (position + offset >= limit) {
+            if (!fill()) {
+                return -1;
             }
         }
+        return buffer[position + offset];
+    }
 
-        outputFile.write("</tokens>\n");
-        outputFile.close();
+    /**
+     * Moves the unread characters to the beginning of the buffer and reads more characters from the input.
+     * The buffer only grows if a single token does not fit into it.
+     *
+     * @returns false if the end of the input is reached.
+     */
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            bufferOffset += position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
     }
 
     /**
-     * @returns true if the current token is a comment
+     * @returns the type of the current token.
      */
-    private boolean isComment(String currentToken) {
-        return currentToken.startsWith("//") || currentToken.startsWith("/*");
+    @Override
+    public TokenType tokenType() {
+        return currentType;
     }
 
     /**
-     * @returns true if the current token is terminated.
+     * @returns the keyword which is the current token.
+     * <p>
+     * Should be called only if tokenType is KEYWORD.
      */
-    private boolean isTermination(char currentChar, char nextChar) {
-        if (currentChar == '/') {
-            return nextChar == ' ';
-        } else {
-            return isSymbol(currentChar) || nextChar == ' ' || isSymbol(nextChar);
-        }
+    @Override
+    public Keyword keyWord() {
+        return currentKeyword;
     }
 
     /**
-     * @returns the type of the current token.
+     * @returns the character which is the current token.
+     * <p>
+     * Should be called only if tokenType is SYMBOL.
      */
-    private String tokenType(String currentToken) {
-        if (isSymbol(currentToken.charAt(0))) {
-            return "symbol";
-        } else if (isKeyword(currentToken)) {
-            return "keyword";
-        } else if (isIntVal(currentToken)) {
-            return "integerConstant";
-        } else if (isStringVal(currentToken)) {
-            return "stringConstant";
-        } else if (isIdentifier(currentToken)) {
-            return "identifier";
-        } else if (isComment(currentToken)) {
-            return "comment";
-        } else {
-            System.out.println("Token type unknown: " + currentToken);
-            return "";
-        }
+    @Override
+    public char symbol() {
+        return currentSymbol;
     }
 
     /**
-     * @returns the value of the current token. Normally it is the given token. But there are some special characters in XML.
+     * @returns the identifier which is the current token.
+     * <p>
+     * Should be called only if tokenType is IDENTIFIER.
      */
-    private String tokenValue(String currentToken) {
-        char c = currentToken.charAt(0);
-        if (isSymbol(c)) {
-            switch (c) {
-                case '<':
-                    return "&lt;";
-                case '>':
-                    return "&gt;";
-                case '"':
-                    return "&quot;";
-                case '&':
-                    return "&amp;";
-            }
-            return currentToken;
-        } else {
-            return currentToken;
-        }
+    @Override
+    public String identifier() {
+        return currentToken;
+    }
+
+    /**
+     * @returns the integer value of the current token. A constant out of range was reported as lexical error and
+     * has the value MAX_INT_CONST, while intText returns its text.
+     * <p>
+     * Should be called only if tokenType is INT_CONST.
+     */
+    @Override
+    public int intVal() {
+        return currentIntValue;
+    }
+
+    /**
+     * @returns the integer constant which is the current token as written in the source code.
+     * <p>
+     * Should be called only if tokenType is INT_CONST.
+     */
+    @Override
+    public String intText() {
+        return currentToken;
+    }
+
+    /**
+     * @returns the string value of the current token, without the double quotes.
+     * <p>
+     * Should be called only if tokenType is STRING_CONST.
+     */
+    @Override
+    public String stringVal() {
+        return currentToken;
     }
 
     /**
@@ -185,67 +430,50 @@ public class JackTokenizer {
     }
 
     /**
-     * @returns true if the current token is a valid keyword.
-     */
-    private boolean isKeyword(String currentToken) {
-        switch (currentToken) {
-            case "class":
-            case "method":
-            case "function":
-            case "constructor":
-            case "int":
-            case "boolean":
-            case "char":
-            case "void":
-            case "var":
-            case "static":
-            case "field":
-            case "let":
-            case "do":
-            case "if":
-            case "else":
-            case "while":
-            case "return":
-            case "true":
-            case "false":
-            case "null":
-            case "this":
-                return true;
-            default:
+     * @returns true if the character is a decimal digit.
+     */
+    private boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @returns true if the text is a valid integer constant, i.e. consists of decimal digits. The value may be out
+     * of range.
+     */
+    static boolean isIntConst(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
                 return false;
+            }
         }
+        return true;
     }
 
     /**
-     * @returns true if the current token is a valid identifier. Identifier must start with a letter or underscore.
+     * @returns the value of an integer constant, or MAX_INT_CONST + 1 if it is out of range.
      */
-    private boolean isIdentifier(String currentToken) {
-        return Character.isLetter(currentToken.charAt(0)) || currentToken.charAt(0) == '_';
+    static int intValue(String digits) {
+        int value = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            value = Math.min(10 * value + digits.charAt(i) - '0', MAX_INT_CONST + 1);
+        }
+        return value;
     }
 
     /**
-     * @returns true if the current token is a string.
+     * @returns true if the character can start an identifier. Identifier must start with a letter or underscore.
      */
-    private boolean isStringVal(String currentToken) {
-        return currentToken.charAt(0) == '"';
+    private boolean isIdentifierStart(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
     }
 
     /**
-     * @return true if the current token is an integer
-     * <p>
-     * Should be called only if tokenType is INT_CONST.
+     * @returns true if the character can be part of an identifier.
      */
-    private boolean isIntVal(String currentToken) {
-        boolean isInt = true;
-        if (currentToken.length() > 0) {
-            for (char c : currentToken.toCharArray()) {
-                if (!Character.isDigit(c)) {
-                    isInt = false;
-                }
-            }
-        } else {
-            isInt = false;
-        }
-        return isInt;
+    private boolean isIdentifierPart(int c) {
+        return isIdentifierStart(c) || isDigit(c);
     }
 }
@@ -0,0 +1,127 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a directory and analyzes every .jack file again as soon as it is created or changed.
+ * The JVM keeps running, so the tokenizer and parser stay compiled by the JIT between changes.
+ * <p>
+ * Editors often write a file several times in a row. Events are therefore collected until no new event
+ * arrived for DEBOUNCE_MILLIS milliseconds, and each changed class is analyzed once.
+ */
+public class JackWatcher implements AutoCloseable {
+    private static final long DEBOUNCE_MILLIS = 50;
+
+    private final File directory;
+    private final AnalyzerOptions options;
+    private final WatchService watchService;
+
+    /**
+     * @param directory directory with .jack files, the output files are written next to them
+     * @param options   settings of the analyzer
+     */
+    public JackWatcher(File directory, AnalyzerOptions options) throws IOException {
+        this.directory = directory;
+        this.options = options;
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    /**
+     * Analyzes all classes once and then every changed class, until the thread is interrupted or the watcher is closed.
+     */
+    public void watch() throws IOException, InterruptedException {
+        analyze(allClasses());
+        System.out.println("Watching '" + directory + "' for changes");
+
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<String> changedClasses = new TreeSet<>();
+                boolean overflow = false;
+
+                // collect events until the directory is quiet
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else {
+                            String name = ((Path) event.context()).getFileName().toString();
+                            if (name.endsWith(".jack")) {
+                                changedClasses.add(name);
+                            }
+                        }
+                    }
+                    key.reset();
+                    key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                analyze(overflow ? allClasses() : changedClasses);
+            }
+        } catch (ClosedWatchServiceException e) {
+            // close() was called
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * @returns the names of all .jack files in the directory.
+     */
+    private Set<String> allClasses() {
+        Set<String> classes = new TreeSet<>();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                if (f.getName().endsWith(".jack")) {
+                    classes.add(f.getName());
+                }
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Analyzes the given .jack files of the directory and prints the results.
+     */
+    private void analyze(Set<String> jackFileNames) throws IOException, InterruptedException {
+        List<File> jackFiles = new ArrayList<>();
+        List<String> fileNames = new ArrayList<>();
+        for (String name : jackFileNames) {
+            File jackFile = new File(directory, name);
+            if (jackFile.isFile()) {
+                jackFiles.add(jackFile);
+                fileNames.add(new File(directory, name.substring(0, name.length() - 5)).getPath());
+            }
+        }
+        if (jackFiles.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<AnalysisResult> results = JackAnalyzer.analyzeAll(jackFiles, fileNames, options);
+        if (options.getCache() != null) {
+            options.getCache().save();
+        }
+        if (options.getIndex() != null) {
+            options.getIndex().save();
+        }
+        int failedClasses = JackAnalyzer.printResults(results);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println("Analyzed " + results.size() + " classes with " + failedClasses + " failed in " + millis + " ms");
+    }
+}
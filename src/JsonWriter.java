@@ -0,0 +1,104 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the parsing tree as json. A rule is an object with the rule name as key and the array of its children as
+ * value, a token is an object with the token type as key, e.g.
+ * {"class":[{"keyword":"class"},{"identifier":"Main"},{"symbol":"{"}, ...]}
+ */
+public class JsonWriter implements ParseListener {
+    private final Writer output;
+    private boolean needsComma;
+
+    /**
+     * @param output writer of the .json file
+     */
+    public JsonWriter(Writer output) {
+        this.output = new BufferedWriter(output, 1 << 16);
+        needsComma = false;
+    }
+
+    @Override
+    public void open(NonTerminal rule) throws IOException {
+        startElement();
+        output.write("{\"");
+        output.write(rule.tagName());
+        output.write("\":[");
+        needsComma = false;
+    }
+
+    @Override
+    public void close(NonTerminal rule) throws IOException {
+        output.write("]}");
+        needsComma = true;
+    }
+
+    @Override
+    public void keyword(Keyword keyword) throws IOException {
+        startElement();
+        output.write("{\"keyword\":\"");
+        output.write(keyword.text());
+        output.write("\"}");
+    }
+
+    @Override
+    public void symbol(char symbol) throws IOException {
+        startElement();
+        output.write("{\"symbol\":\"");
+        writeEscaped(output, symbol);
+        output.write("\"}");
+    }
+
+    /**
+     * Writes an integer constant as JSON number, i.e. without leading zeros, and other tokens as JSON string.
+     */
+    @Override
+    public void token(TokenType type, String text) throws IOException {
+        startElement();
+        if (type == TokenType.INT_CONST) {
+            int start = 0;
+            while (start < text.length() - 1 && text.charAt(start) == '0') {
+                start++;
+            }
+            output.write("{\"integerConstant\":");
+            output.write(text, start, text.length() - start);
+            output.write('}');
+            return;
+        }
+        output.write("{\"");
+        output.write(type.tagName());
+        output.write("\":\"");
+        for (int i = 0; i < text.length(); i++) {
+            writeEscaped(output, text.charAt(i));
+        }
+        output.write("\"}");
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.write('\n');
+        output.close();
+    }
+
+    private void startElement() throws IOException {
+        if (needsComma) {
+            output.write(',');
+        }
+        needsComma = true;
+    }
+
+    /**
+     * Writes a character of a JSON string, escaping quotes, backslashes and control characters.
+     */
+    static void writeEscaped(Writer output, char c) throws IOException {
+        if (c == '"' || c == '\\') {
+            output.write('\\');
+            output.write(c);
+        } else if (c < 0x20) {
+            output.write(String.format("\\u%04x", (int) c));
+        } else {
+            output.write(c);
+        }
+    }
+}
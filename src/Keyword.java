@@ -0,0 +1,83 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keywords of the Jack language as returned by JackTokenizer.keyWord().
+ */
+public enum Keyword {
+    CLASS("class"),
+    METHOD("method"),
+    FUNCTION("function"),
+    CONSTRUCTOR("constructor"),
+    INT("int"),
+    BOOLEAN("boolean"),
+    CHAR("char"),
+    VOID("void"),
+    VAR("var"),
+    STATIC("static"),
+    FIELD("field"),
+    LET("let"),
+    DO("do"),
+    IF("if"),
+    ELSE("else"),
+    WHILE("while"),
+    RETURN("return"),
+    TRUE("true"),
+    FALSE("false"),
+    NULL("null"),
+    THIS("this");
+
+    private static final Map<String, Keyword> KEYWORDS = new HashMap<>();
+    private static final Keyword[][] KEYWORDS_BY_FIRST_LETTER = new Keyword[26][0];
+
+    static {
+        for (Keyword keyword : values()) {
+            KEYWORDS.put(keyword.text, keyword);
+            int letter = keyword.text.charAt(0) - 'a';
+            Keyword[] keywords = Arrays.copyOf(KEYWORDS_BY_FIRST_LETTER[letter], KEYWORDS_BY_FIRST_LETTER[letter].length + 1);
+            keywords[keywords.length - 1] = keyword;
+            KEYWORDS_BY_FIRST_LETTER[letter] = keywords;
+        }
+    }
+
+    private final String text;
+    private final char[] chars;
+
+    Keyword(String text) {
+        this.text = text;
+        this.chars = text.toCharArray();
+    }
+
+    /**
+     * @returns the keyword as it is written in Jack source code, e.g. 'class'.
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * @returns the keyword with the given text, or null if the text is not a keyword.
+     */
+    public static Keyword fromText(String text) {
+        return KEYWORDS.get(text);
+    }
+
+    /**
+     * Looks up a keyword without creating a string.
+     *
+     * @returns the keyword written in chars[offset, offset + length), or null if these characters are not a keyword.
+     */
+    public static Keyword fromChars(char[] chars, int offset, int length) {
+        int letter = chars[offset] - 'a';
+        if (letter < 0 || letter >= KEYWORDS_BY_FIRST_LETTER.length) {
+            return null;
+        }
+        for (Keyword keyword : KEYWORDS_BY_FIRST_LETTER[letter]) {
+            if (keyword.chars.length == length && Arrays.equals(keyword.chars, 0, length, chars, offset, offset + length)) {
+                return keyword;
+            }
+        }
+        return null;
+    }
+}
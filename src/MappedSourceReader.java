@@ -0,0 +1,121 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a source file that is mapped into memory with FileChannel.map, for very large generated .jack files.
+ * <p>
+ * Jack source code is normally ASCII. ASCII bytes are copied in small chunks into the buffer of the tokenizer,
+ * without a charset decoder and without reading the whole file into the heap. From the first byte outside of ASCII on,
+ * the rest of the file is decoded with the default charset, like a FileReader does.
+ */
+public class MappedSourceReader extends Reader {
+    private static final int CHUNK_SIZE = 8192;
+
+    private final ByteBuffer bytes;
+    private final byte[] chunk;
+    private CharsetDecoder decoder;
+    private boolean decoding;
+    private int pending;
+
+    /**
+     * @param bytes content of the source file, read from its position to its limit
+     */
+    public MappedSourceReader(ByteBuffer bytes) {
+        this.bytes = bytes;
+        chunk = new byte[CHUNK_SIZE];
+        decoder = null;
+        decoding = false;
+        pending = -1;
+    }
+
+    /**
+     * Maps the file into memory. The mapping stays valid after the channel is closed.
+     *
+     * @returns a reader of the file.
+     */
+    public static MappedSourceReader open(File file) throws IOException {
+        return new MappedSourceReader(map(file));
+    }
+
+    /**
+     * @returns the content of the file, mapped read-only into memory.
+     */
+    public static ByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) {
+        if (decoder != null) {
+            return decode(buffer, offset, length);
+        }
+        if (!bytes.hasRemaining()) {
+            return -1;
+        }
+
+        int count = Math.min(Math.min(length, bytes.remaining()), chunk.length);
+        int position = bytes.position();
+        bytes.get(chunk, 0, count);
+        int i = 0;
+        while (i < count && chunk[i] >= 0) {
+            buffer[offset + i] = (char) chunk[i];
+            i++;
+        }
+        bytes.position(position + i);
+
+        if (i < count) {
+            // not ASCII, the rest of the file is decoded
+            decoder = Charset.defaultCharset().newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            decoding = true;
+            if (i == 0) {
+                return decode(buffer, offset, length);
+            }
+        }
+        return i;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Decodes the remaining bytes into the buffer.
+     *
+     * @returns the number of decoded characters, or -1 at the end of the file.
+     */
+    private int decode(char[] buffer, int offset, int length) {
+        CharBuffer chars = CharBuffer.wrap(buffer, offset, length);
+        if (pending >= 0) {
+            chars.put((char) pending);
+            pending = -1;
+        }
+        if (decoding) {
+            decoder.decode(bytes, chars, true);
+            if (chars.position() == offset && bytes.hasRemaining()) {
+                // a surrogate pair does not fit into a buffer of one character
+                CharBuffer pair = CharBuffer.allocate(2);
+                decoder.decode(bytes, pair, true);
+                buffer[offset] = pair.get(0);
+                pending = pair.get(1);
+                return 1;
+            }
+            if (!bytes.hasRemaining()) {
+                decoder.flush(chars);
+                decoding = false;
+            }
+        }
+        return chars.position() > offset ? chars.position() - offset : -1;
+    }
+}
@@ -0,0 +1,124 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Summary of the metrics of a run as JSON, for build tools and dashboards. Times are in microseconds.
+ * <p>
+ * The summary contains the totals of all classes with the time of each phase, the throughput in bytes and tokens
+ * per second of the wall time, the SLOWEST_CLASSES classes with the longest total time and one entry per class.
+ * Classes skipped by the cache have no measured phases.
+ */
+public class MetricsReport {
+    private static final int SLOWEST_CLASSES = 5;
+
+    private final List<AnalysisResult> results;
+    private final long wallNanos;
+
+    /**
+     * @param results   results of all classes of the run, see AnalysisResult.getMetrics
+     * @param wallNanos time of the whole run in nanoseconds
+     */
+    public MetricsReport(List<AnalysisResult> results, long wallNanos) {
+        this.results = results;
+        this.wallNanos = wallNanos;
+    }
+
+    /**
+     * Writes the summary. Does not close the writer.
+     */
+    public void write(Writer output) throws IOException {
+        long[] phaseNanos = new long[ClassMetrics.Phase.values().length];
+        long bytesIn = 0;
+        long bytesOut = 0;
+        long tokens = 0;
+        long nodes = 0;
+        int failedClasses = 0;
+        for (AnalysisResult result : results) {
+            ClassMetrics metrics = result.getMetrics();
+            for (ClassMetrics.Phase phase : ClassMetrics.Phase.values()) {
+                phaseNanos[phase.ordinal()] += metrics.getNanos(phase);
+            }
+            bytesIn += metrics.getBytesIn();
+            bytesOut += metrics.getBytesOut();
+            tokens += metrics.getTokens();
+            nodes += metrics.getNodes();
+            if (!result.isSuccessful()) {
+                failedClasses++;
+            }
+        }
+        double seconds = Math.max(wallNanos, 1) / 1e9;
+
+        output.write("{\n");
+        output.write("  \"version\": \"" + JackAnalyzer.VERSION + "\",\n");
+        output.write("  \"classes\": " + results.size() + ",\n");
+        output.write("  \"failedClasses\": " + failedClasses + ",\n");
+        output.write("  \"wallMicros\": " + wallNanos / 1000 + ",\n");
+        output.write("  \"phaseMicros\": ");
+        writePhases(output, phaseNanos);
+        output.write(",\n");
+        output.write("  \"bytesIn\": " + bytesIn + ",\n");
+        output.write("  \"bytesOut\": " + bytesOut + ",\n");
+        output.write("  \"tokens\": " + tokens + ",\n");
+        output.write("  \"nodes\": " + nodes + ",\n");
+        output.write(String.format(Locale.ROOT, "  \"bytesPerSecond\": %.0f,%n", bytesIn / seconds));
+        output.write(String.format(Locale.ROOT, "  \"tokensPerSecond\": %.0f,%n", tokens / seconds));
+
+        List<AnalysisResult> slowest = new ArrayList<>(results);
+        slowest.sort(Comparator.comparingLong((AnalysisResult result) -> result.getMetrics().getTotalNanos()).reversed());
+        output.write("  \"slowest\": [");
+        for (int i = 0; i < Math.min(SLOWEST_CLASSES, slowest.size()); i++) {
+            output.write(i > 0 ? ", " : "");
+            writeString(output, slowest.get(i).getFileName());
+        }
+        output.write("],\n");
+
+        output.write("  \"files\": [");
+        for (int i = 0; i < results.size(); i++) {
+            output.write(i > 0 ? ",\n    " : "\n    ");
+            writeClass(output, results.get(i));
+        }
+        output.write(results.isEmpty() ? "]\n" : "\n  ]\n");
+        output.write("}\n");
+        output.flush();
+    }
+
+    private static void writeClass(Writer output, AnalysisResult result) throws IOException {
+        ClassMetrics metrics = result.getMetrics();
+        long[] phaseNanos = new long[ClassMetrics.Phase.values().length];
+        for (ClassMetrics.Phase phase : ClassMetrics.Phase.values()) {
+            phaseNanos[phase.ordinal()] = metrics.getNanos(phase);
+        }
+        output.write("{\"file\": ");
+        writeString(output, result.getFileName());
+        output.write(", \"errors\": " + result.getErrorCount());
+        output.write(", \"totalMicros\": " + metrics.getTotalNanos() / 1000);
+        output.write(", \"phaseMicros\": ");
+        writePhases(output, phaseNanos);
+        output.write(", \"bytesIn\": " + metrics.getBytesIn());
+        output.write(", \"bytesOut\": " + metrics.getBytesOut());
+        output.write(", \"tokens\": " + metrics.getTokens());
+        output.write(", \"nodes\": " + metrics.getNodes() + "}");
+    }
+
+    private static void writePhases(Writer output, long[] phaseNanos) throws IOException {
+        output.write("{");
+        for (ClassMetrics.Phase phase : ClassMetrics.Phase.values()) {
+            output.write(phase.ordinal() > 0 ? ", \"" : "\"");
+            output.write(phase.name().toLowerCase(Locale.ROOT));
+            output.write("\": " + phaseNanos[phase.ordinal()] / 1000);
+        }
+        output.write("}");
+    }
+
+    private static void writeString(Writer output, String text) throws IOException {
+        output.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            JsonWriter.writeEscaped(output, text.charAt(i));
+        }
+        output.write('"');
+    }
+}
@@ -0,0 +1,76 @@
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Passes every event to several listeners, so that one parse writes several output formats.
+ */
+public class MultiListener implements ParseListener {
+    private final ParseListener[] listeners;
+
+    public MultiListener(List<ParseListener> listeners) {
+        this.listeners = listeners.toArray(new ParseListener[0]);
+    }
+
+    @Override
+    public void open(NonTerminal rule) throws IOException {
+        for (ParseListener listener : listeners) {
+            listener.open(rule);
+        }
+    }
+
+    @Override
+    public void close(NonTerminal rule) throws IOException {
+        for (ParseListener listener : listeners) {
+            listener.close(rule);
+        }
+    }
+
+    @Override
+    public void keyword(Keyword keyword) throws IOException {
+        for (ParseListener listener : listeners) {
+            listener.keyword(keyword);
+        }
+    }
+
+    @Override
+    public void symbol(char symbol) throws IOException {
+        for (ParseListener listener : listeners) {
+            listener.symbol(symbol);
+        }
+    }
+
+    @Override
+    public void token(TokenType type, String text) throws IOException {
+        for (ParseListener listener : listeners) {
+            listener.token(type, text);
+        }
+    }
+
+    /**
+     * Passes the token source itself, so that listeners can read the position of the token.
+     */
+    @Override
+    public void token(TokenSource tokenizer) throws IOException {
+        for (ParseListener listener : listeners) {
+            listener.token(tokenizer);
+        }
+    }
+
+    /**
+     * Closes all listeners, also if one of them fails.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (ParseListener listener : listeners) {
+            try {
+                listener.close();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
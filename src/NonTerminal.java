@@ -0,0 +1,34 @@
+/**
+ * Rules of the Jack grammar that appear as xml elements in the parsing tree, and the root element of the token file.
+ */
+public enum NonTerminal {
+    TOKENS("tokens"),
+    CLASS("class"),
+    CLASS_VAR_DEC("classVarDec"),
+    SUBROUTINE_DEC("subroutineDec"),
+    PARAMETER_LIST("parameterList"),
+    SUBROUTINE_BODY("subroutineBody"),
+    VAR_DEC("varDec"),
+    STATEMENTS("statements"),
+    IF_STATEMENT("ifStatement"),
+    WHILE_STATEMENT("whileStatement"),
+    LET_STATEMENT("letStatement"),
+    DO_STATEMENT("doStatement"),
+    RETURN_STATEMENT("returnStatement"),
+    EXPRESSION("expression"),
+    TERM("term"),
+    EXPRESSION_LIST("expressionList");
+
+    private final String tagName;
+
+    NonTerminal(String tagName) {
+        this.tagName = tagName;
+    }
+
+    /**
+     * @returns the name of the xml element of this rule, e.g. 'classVarDec'.
+     */
+    public String tagName() {
+        return tagName;
+    }
+}
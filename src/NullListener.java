@@ -0,0 +1,37 @@
+/**
+ * Ignores the parsing tree, for checking the syntax without writing output files.
+ */
+public class NullListener implements ParseListener {
+    public static final NullListener INSTANCE = new NullListener();
+
+    private NullListener() {
+    }
+
+    @Override
+    public void open(NonTerminal rule) {
+    }
+
+    @Override
+    public void close(NonTerminal rule) {
+    }
+
+    @Override
+    public void keyword(Keyword keyword) {
+    }
+
+    @Override
+    public void symbol(char symbol) {
+    }
+
+    @Override
+    public void token(TokenType type, String text) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void token(TokenSource tokenizer) {
+    }
+}
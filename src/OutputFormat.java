@@ -0,0 +1,66 @@
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formats of the parsing tree. Each format is written to fileName + extension.
+ */
+public enum OutputFormat {
+    XML(".xml"),
+    JSON(".json"),
+    SEXP(".sexp"),
+    BINARY(".jpt");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Creates the output file and a listener that writes the parsing tree to it.
+     *
+     * @param fileName output path without extension
+     * @param options  settings of the analyzer, e.g. indentation of xml
+     */
+    public ParseListener createListener(String fileName, AnalyzerOptions options) throws IOException {
+        switch (this) {
+            case JSON:
+                return new JsonWriter(new FileWriter(fileName + extension));
+            case SEXP:
+                return new SExpressionWriter(new FileWriter(fileName + extension));
+            case BINARY:
+                return new BinaryTreeWriter(new BufferedOutputStream(new FileOutputStream(fileName + extension)));
+            default:
+                return new XmlWriter(new FileWriter(fileName + extension), options.isIndent());
+        }
+    }
+
+    /**
+     * Creates a listener that writes the parsing tree to a stream, e.g. the response of the AnalysisServer.
+     * The text formats are written in UTF-8. The stream is closed with the listener.
+     *
+     * @param output  stream for the parsing tree
+     * @param options settings of the analyzer, e.g. indentation of xml
+     */
+    public ParseListener createListener(OutputStream output, AnalyzerOptions options) {
+        switch (this) {
+            case JSON:
+                return new JsonWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            case SEXP:
+                return new SExpressionWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            case BINARY:
+                return new BinaryTreeWriter(output);
+            default:
+                return new XmlWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), options.isIndent());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Parses the subroutines of a large class in parallel.
+ * <p>
+ * The subroutine declarations are found by counting braces in the tokens of the class. Batches of subroutines
+ * are parsed into ParseTrees on an executor, while this engine parses the class as usual. When it reaches a
+ * subroutine that was parsed without errors, the tree is written to the listener and its tokens are skipped,
+ * so the output is the same as the output of the CompilationEngine.
+ * <p>
+ * A subroutine with syntax errors, or whose parse did not end exactly at its closing brace, is parsed again
+ * by this engine, so that errors and their messages are also the same. The lexical errors are the same if the
+ * tokens are read with TokenBuffer.tokenize and parsed with a cursor from TokenBuffer.replay.
+ */
+public class ParallelCompilationEngine extends CompilationEngine {
+    /**
+     * Classes with fewer subroutines are parsed on the current thread.
+     */
+    private static final int MIN_SUBROUTINES = 16;
+
+    /**
+     * Number of batches per processor, more batches balance the work better but have more overhead.
+     */
+    private static final int BATCHES_PER_PROCESSOR = 4;
+
+    private final TokenBuffer tokens;
+    private final TokenBuffer.Cursor cursor;
+    private final Executor executor;
+
+    private final Map<Integer, Integer> subroutinesByStart;
+    private int[] ranges;
+    private final List<CompletableFuture<ParseTree[]>> batches;
+    private int batchSize;
+
+    /**
+     * @param tokens   all tokens of the class
+     * @param listener receives the parsing tree
+     * @param executor runs the parsers of the subroutines
+     */
+    public ParallelCompilationEngine(TokenBuffer tokens, ParseListener listener, Executor executor) {
+        this(tokens, tokens.cursor(0, tokens.size()), listener, executor);
+    }
+
+    /**
+     * @param tokens   all tokens of the class
+     * @param cursor   reads all tokens, e.g. from TokenBuffer.replay to report the lexical errors in the order of
+     *                 the source code
+     * @param listener receives the parsing tree
+     * @param executor runs the parsers of the subroutines
+     */
+    public ParallelCompilationEngine(TokenBuffer tokens, TokenBuffer.Cursor cursor, ParseListener listener, Executor executor) {
+        super(cursor, listener);
+        this.tokens = tokens;
+        this.cursor = cursor;
+        this.executor = executor;
+        subroutinesByStart = new HashMap<>();
+        ranges = new int[0];
+        batches = new ArrayList<>();
+        batchSize = 1;
+    }
+
+    /**
+     * Starts parsing the subroutines on the executor and compiles the class.
+     */
+    @Override
+    public void compileClass() throws IOException {
+        ranges = tokens.subroutineRanges();
+        int subroutines = ranges.length / 2;
+        if (subroutines >= MIN_SUBROUTINES) {
+            int processors = Runtime.getRuntime().availableProcessors();
+            batchSize = Math.max(1, (subroutines + BATCHES_PER_PROCESSOR * processors - 1) / (BATCHES_PER_PROCESSOR * processors));
+            for (int first = 0; first < subroutines; first += batchSize) {
+                int from = first;
+                int to = Math.min(subroutines, first + batchSize);
+                batches.add(CompletableFuture.supplyAsync(() -> parseBatch(from, to), executor));
+            }
+            for (int i = 0; i < subroutines; i++) {
+                subroutinesByStart.put(ranges[2 * i], i);
+            }
+        }
+        super.compileClass();
+    }
+
+    /**
+     * Writes the tree of the subroutine if it was parsed in parallel, otherwise compiles it.
+     */
+    @Override
+    public void compileSubroutineDec() throws IOException {
+        Integer subroutine = subroutinesByStart.get(cursor.index());
+        ParseTree tree = subroutine != null ? batches.get(subroutine / batchSize).join()[subroutine % batchSize] : null;
+        if (tree == null) {
+            super.compileSubroutineDec();
+            return;
+        }
+        tree.write(listener);
+        cursor.seek(ranges[2 * subroutine + 1]);
+        nextToken();
+    }
+
+    /**
+     * Parses the subroutines from (inclusive) to (exclusive).
+     *
+     * @returns the trees of the subroutines, null for subroutines that must be parsed again by this engine.
+     */
+    private ParseTree[] parseBatch(int from, int to) {
+        ParseTree[] trees = new ParseTree[to - from];
+        for (int i = from; i < to; i++) {
+            ParseTree tree = new ParseTree();
+            CompilationEngine engine = new CompilationEngine(tokens.cursor(ranges[2 * i], ranges[2 * i + 1]), tree);
+            engine.setDiagnostics(new Diagnostics(null));
+            try {
+                engine.nextToken();
+                engine.compileSubroutineDec();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (engine.getErrorCount() == 0 && engine.currentType == null) {
+                trees[i - from] = tree;
+            }
+        }
+        return trees;
+    }
+}
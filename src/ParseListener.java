@@ -0,0 +1,56 @@
+import java.io.IOException;
+
+/**
+ * Receives the parsing tree of a class from the CompilationEngine, one event per rule and token in the order of
+ * the source code. Implementations write the tree in an output format or build it in memory.
+ */
+public interface ParseListener {
+
+    /**
+     * Starts a rule, e.g. 'class'. All events until the matching close(rule) belong to this rule.
+     */
+    void open(NonTerminal rule) throws IOException;
+
+    /**
+     * Ends a rule.
+     */
+    void close(NonTerminal rule) throws IOException;
+
+    void keyword(Keyword keyword) throws IOException;
+
+    void symbol(char symbol) throws IOException;
+
+    /**
+     * Reports an identifier, an integer constant or a string constant. The integer constant is given as written in
+     * the source code, e.g. '007'.
+     */
+    void token(TokenType type, String text) throws IOException;
+
+    /**
+     * Called once after the complete tree. Writes the remaining output and closes the file.
+     */
+    void close() throws IOException;
+
+    /**
+     * Reports the current token of a tokenizer or token file.
+     */
+    default void token(TokenSource tokenizer) throws IOException {
+        switch (tokenizer.tokenType()) {
+            case KEYWORD:
+                keyword(tokenizer.keyWord());
+                break;
+            case SYMBOL:
+                symbol(tokenizer.symbol());
+                break;
+            case INT_CONST:
+                token(TokenType.INT_CONST, tokenizer.intText());
+                break;
+            case IDENTIFIER:
+                token(TokenType.IDENTIFIER, tokenizer.identifier());
+                break;
+            case STRING_CONST:
+                token(TokenType.STRING_CONST, tokenizer.stringVal());
+                break;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsing tree of one class, stored in arrays of ints instead of one object per node.
+ * <p>
+ * Nodes are numbered in the order they are created, which is the order of the xml file. Node 0 is the root.
+ * For every node the kind, the parent, the first child, the last child and the next sibling are stored.
+ * The kind of a rule is the ordinal of its NonTerminal, the kind of a token is -1 - the ordinal of its TokenType.
+ * The value of a token is the ordinal of its Keyword, its symbol character or the index of its text in a table of
+ * strings. Equal identifiers, integer and string constants share one entry in this table.
+ */
+public class ParseTree implements ParseListener {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int NONE = -1;
+
+    private int[] kinds;
+    private int[] parents;
+    private int[] firstChildren;
+    private int[] lastChildren;
+    private int[] nextSiblings;
+    private int[] values;
+    private int size;
+    private int current;
+
+    private final List<String> strings;
+    private final Map<String, Integer> stringIndices;
+
+    public ParseTree() {
+        kinds = new int[INITIAL_CAPACITY];
+        parents = new int[INITIAL_CAPACITY];
+        firstChildren = new int[INITIAL_CAPACITY];
+        lastChildren = new int[INITIAL_CAPACITY];
+        nextSiblings = new int[INITIAL_CAPACITY];
+        values = new int[INITIAL_CAPACITY];
+        size = 0;
+        current = NONE;
+        strings = new ArrayList<>();
+        stringIndices = new HashMap<>();
+    }
+
+    /**
+     * Adds a rule as last child of the current rule and makes it the current rule.
+     */
+    @Override
+    public void open(NonTerminal rule) {
+        current = add(rule.ordinal(), 0);
+    }
+
+    /**
+     * Makes the parent of the current rule the current rule.
+     */
+    @Override
+    public void close(NonTerminal rule) {
+        current = parents[current];
+    }
+
+    @Override
+    public void keyword(Keyword keyword) {
+        add(tokenKind(TokenType.KEYWORD), keyword.ordinal());
+    }
+
+    @Override
+    public void symbol(char symbol) {
+        add(tokenKind(TokenType.SYMBOL), symbol);
+    }
+
+    /**
+     * Adds an identifier, integer or string constant.
+     */
+    @Override
+    public void token(TokenType type, String text) {
+        Integer index = stringIndices.get(text);
+        if (index == null) {
+            index = strings.size();
+            strings.add(text);
+            stringIndices.put(text, index);
+        }
+        add(tokenKind(type), index);
+    }
+
+    /**
+     * The tree stays in memory, so there is nothing to close.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * @returns the number of nodes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @returns true if the node is a rule, false if it is a token.
+     */
+    public boolean isRule(int node) {
+        return kinds[node] >= 0;
+    }
+
+    /**
+     * Should be called only if isRule(node) is true.
+     */
+    public NonTerminal rule(int node) {
+        return NonTerminal.values()[kinds[node]];
+    }
+
+    /**
+     * Should be called only if isRule(node) is false.
+     */
+    public TokenType tokenType(int node) {
+        return TokenType.values()[-1 - kinds[node]];
+    }
+
+    /**
+     * Should be called only if tokenType(node) is KEYWORD.
+     */
+    public Keyword keyWord(int node) {
+        return Keyword.values()[values[node]];
+    }
+
+    /**
+     * Should be called only if tokenType(node) is SYMBOL.
+     */
+    public char symbol(int node) {
+        return (char) values[node];
+    }
+
+    /**
+     * Should be called only if tokenType(node) is INT_CONST.
+     */
+    public int intVal(int node) {
+        return Math.min(JackTokenizer.intValue(text(node)), JackTokenizer.MAX_INT_CONST);
+    }
+
+    /**
+     * @returns the text of the token, for integer constants as written in the source code.
+     * <p>
+     * Should be called only if tokenType(node) is IDENTIFIER, INT_CONST or STRING_CONST.
+     */
+    public String text(int node) {
+        return strings.get(values[node]);
+    }
+
+    /**
+     * @returns the parent of the node, or -1 for the root.
+     */
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * @returns the first child of the node, or -1 if it has no children.
+     */
+    public int firstChild(int node) {
+        return firstChildren[node];
+    }
+
+    /**
+     * @returns the next sibling of the node, or -1 if it is the last child.
+     */
+    public int nextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    /**
+     * Reports the nodes of the tree to a listener, e.g. an XmlWriter. Does not close the listener.
+     * The tree is traversed without recursion, so deep trees do not need a large stack.
+     */
+    public void write(ParseListener output) throws IOException {
+        int node = size > 0 ? 0 : NONE;
+        while (node != NONE) {
+            if (isRule(node)) {
+                output.open(rule(node));
+                if (firstChildren[node] != NONE) {
+                    node = firstChildren[node];
+                    continue;
+                }
+                output.close(rule(node));
+            } else {
+                writeToken(output, node);
+            }
+
+            // go up until a node with a next sibling is found
+            while (node != NONE && nextSiblings[node] == NONE) {
+                node = parents[node];
+                if (node != NONE) {
+                    output.close(rule(node));
+                }
+            }
+            if (node != NONE) {
+                node = nextSiblings[node];
+            }
+        }
+    }
+
+    private void writeToken(ParseListener output, int node) throws IOException {
+        switch (tokenType(node)) {
+            case KEYWORD:
+                output.keyword(keyWord(node));
+                break;
+            case SYMBOL:
+                output.symbol(symbol(node));
+                break;
+            default:
+                output.token(tokenType(node), text(node));
+                break;
+        }
+    }
+
+    private static int tokenKind(TokenType type) {
+        return -1 - type.ordinal();
+    }
+
+    /**
+     * Adds a node as last child of the current rule.
+     */
+    private int add(int kind, int value) {
+        if (size == kinds.length) {
+            int capacity = 2 * kinds.length;
+            kinds = Arrays.copyOf(kinds, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            lastChildren = Arrays.copyOf(lastChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        int node = size++;
+        kinds[node] = kind;
+        values[node] = value;
+        parents[node] = current;
+        firstChildren[node] = NONE;
+        lastChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+
+        if (current != NONE) {
+            if (firstChildren[current] == NONE) {
+                firstChildren[current] = node;
+            } else {
+                nextSiblings[lastChildren[current]] = node;
+            }
+            lastChildren[current] = node;
+        }
+        return node;
+    }
+}
@@ -0,0 +1,74 @@
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * One JackTokenizer and one CompilationEngine per thread, reset onto each new class instead of created again.
+ * Batch runs over many small classes then do not allocate new buffers and stacks for every class.
+ * <p>
+ * The tokenizer and the engine of a thread must not be used for two classes at the same time. Threads that exist
+ * for a single request, e.g. the virtual threads of the AnalysisServer, should create their own instances.
+ */
+public class ParserPool {
+    private static final ThreadLocal<ParserPool> POOL = ThreadLocal.withInitial(ParserPool::new);
+
+    private JackTokenizer tokenizer;
+    private PooledEngine engine;
+
+    private ParserPool() {
+        tokenizer = null;
+        engine = null;
+    }
+
+    /**
+     * @returns the pool of the current thread.
+     */
+    public static ParserPool current() {
+        return POOL.get();
+    }
+
+    /**
+     * @param inputFile   .jack file with source code
+     * @param tokenOutput writer of the token file, or null if no token file should be written
+     * @returns the tokenizer of this thread, reset onto the input.
+     */
+    public JackTokenizer tokenizer(Reader inputFile, ParseListener tokenOutput) throws IOException {
+        if (tokenizer == null) {
+            tokenizer = new JackTokenizer(inputFile, tokenOutput);
+        } else {
+            tokenizer.reset(inputFile, tokenOutput);
+        }
+        return tokenizer;
+    }
+
+    /**
+     * @param tokens   tokenizer of the .jack file or reader of a token file
+     * @param listener receives the parsing tree
+     * @returns the compilation engine of this thread, reset onto the tokens.
+     */
+    public CompilationEngine engine(TokenSource tokens, ParseListener listener) {
+        if (engine == null) {
+            engine = new PooledEngine(tokens, listener);
+        } else {
+            engine.reset(tokens, listener);
+        }
+        return engine;
+    }
+
+    /**
+     * Compilation engine that can be reset onto the next class. Only the pool creates and resets these engines.
+     */
+    private static final class PooledEngine extends CompilationEngine {
+
+        PooledEngine(TokenSource tokens, ParseListener listener) {
+            super(tokens, listener);
+        }
+
+        /**
+         * Starts parsing another class with the same stacks.
+         * The diagnostics are reset to the default, call setDiagnostics for the new class.
+         */
+        final void reset(TokenSource tokens, ParseListener listener) {
+            start(tokens, listener);
+        }
+    }
+}
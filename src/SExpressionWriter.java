@@ -0,0 +1,88 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the parsing tree as s-expression, one list per rule and token, e.g.
+ * (class (keyword class) (identifier Main) (symbol "{") ...)
+ * Symbols and string constants are quoted.
+ */
+public class SExpressionWriter implements ParseListener {
+    private final Writer output;
+    private boolean needsSpace;
+
+    /**
+     * @param output writer of the .sexp file
+     */
+    public SExpressionWriter(Writer output) {
+        this.output = new BufferedWriter(output, 1 << 16);
+        needsSpace = false;
+    }
+
+    @Override
+    public void open(NonTerminal rule) throws IOException {
+        startElement();
+        output.write('(');
+        output.write(rule.tagName());
+    }
+
+    @Override
+    public void close(NonTerminal rule) throws IOException {
+        output.write(')');
+        needsSpace = true;
+    }
+
+    @Override
+    public void keyword(Keyword keyword) throws IOException {
+        startElement();
+        output.write("(keyword ");
+        output.write(keyword.text());
+        output.write(')');
+    }
+
+    @Override
+    public void symbol(char symbol) throws IOException {
+        startElement();
+        output.write("(symbol \"");
+        writeEscaped(symbol);
+        output.write("\")");
+    }
+
+    @Override
+    public void token(TokenType type, String text) throws IOException {
+        startElement();
+        output.write('(');
+        output.write(type.tagName());
+        if (type == TokenType.STRING_CONST) {
+            output.write(" \"");
+            for (int i = 0; i < text.length(); i++) {
+                writeEscaped(text.charAt(i));
+            }
+            output.write("\")");
+        } else {
+            output.write(' ');
+            output.write(text);
+            output.write(')');
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.write('\n');
+        output.close();
+    }
+
+    private void startElement() throws IOException {
+        if (needsSpace) {
+            output.write(' ');
+        }
+        needsSpace = true;
+    }
+
+    private void writeEscaped(char c) throws IOException {
+        if (c == '"' || c == '\\') {
+            output.write('\\');
+        }
+        output.write(c);
+    }
+}
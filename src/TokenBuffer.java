@@ -0,0 +1,329 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * All tokens of a class in memory, stored as one type byte, one int value and the position of each token.
+ * The value is the ordinal of the Keyword, the symbol character or the index of the text, which is the integer
+ * constant as written in the source code for INT_CONST.
+ * <p>
+ * Any range of the tokens can be read with a Cursor, so that several parsers can work on different parts of
+ * the class at the same time.
+ * <p>
+ * Tokens read with tokenize keep the lexical errors of the JackTokenizer with the position at which they were
+ * found. A cursor from replay reports them and writes the token file at the same point as the tokenizer would,
+ * so that a parser on the buffer reports the same errors in the same order and stops at the same token.
+ */
+public class TokenBuffer {
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+    private static final Keyword[] KEYWORDS = Keyword.values();
+
+    private byte[] types;
+    private int[] values;
+    private int[] lines;
+    private int[] columns;
+    private int size;
+    private final List<String> texts;
+    private final List<Diagnostic> errors;
+    private int[] errorPositions;
+    private int errorPosition;
+
+    private TokenBuffer() {
+        types = new byte[1024];
+        values = new int[1024];
+        lines = new int[1024];
+        columns = new int[1024];
+        size = 0;
+        texts = new ArrayList<>();
+        errors = new ArrayList<>();
+        errorPositions = new int[16];
+        errorPosition = 0;
+    }
+
+    /**
+     * Reads all remaining tokens of the source. A JackTokenizer writes its token file while they are read.
+     */
+    public static TokenBuffer read(TokenSource source) throws IOException {
+        TokenBuffer tokens = new TokenBuffer();
+        tokens.readAll(source);
+        return tokens;
+    }
+
+    /**
+     * Reads all remaining tokens of the tokenizer. Its lexical errors are not reported but kept, see replay.
+     * The tokenizer should not write a token file.
+     */
+    public static TokenBuffer tokenize(JackTokenizer tokenizer) throws IOException {
+        TokenBuffer tokens = new TokenBuffer();
+        Diagnostics diagnostics = tokenizer.diagnostics;
+        tokenizer.setDiagnostics(new Diagnostics(null) {
+            @Override
+            public void report(int line, int column, String message, String expected, String actual) {
+                tokens.addError(new Diagnostic(null, line, column, message, expected, actual));
+            }
+        });
+        try {
+            tokens.readAll(tokenizer);
+        } finally {
+            tokenizer.setDiagnostics(diagnostics);
+        }
+        return tokens;
+    }
+
+    /**
+     * Reads the tokens. The position of an error is 2 * index while the tokenizer skips the characters before the
+     * token at index, and 2 * index + 1 while it reads the token.
+     */
+    private void readAll(TokenSource source) throws IOException {
+        while (true) {
+            errorPosition = 2 * size;
+            if (!source.hasMoreTokens()) {
+                break;
+            }
+            errorPosition = 2 * size + 1;
+            source.advance();
+            lines[size] = source.line();
+            columns[size] = source.column();
+            switch (source.tokenType()) {
+                case KEYWORD:
+                    add(TokenType.KEYWORD, source.keyWord().ordinal());
+                    break;
+                case SYMBOL:
+                    add(TokenType.SYMBOL, source.symbol());
+                    break;
+                case INT_CONST:
+                    add(TokenType.INT_CONST, addText(source.intText()));
+                    break;
+                case IDENTIFIER:
+                    add(TokenType.IDENTIFIER, addText(source.identifier()));
+                    break;
+                case STRING_CONST:
+                    add(TokenType.STRING_CONST, addText(source.stringVal()));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @returns the number of tokens.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the subroutine declarations of the class by counting braces, without parsing.
+     * A subroutine starts with 'constructor', 'function' or 'method' inside the braces of the class and ends with
+     * the brace that closes its body. The ranges are only a guess for invalid code.
+     *
+     * @returns the first token and the token after the end of each subroutine as pairs, i.e. start0, end0, start1, ...
+     */
+    public int[] subroutineRanges() {
+        int[] ranges = new int[16];
+        int count = 0;
+        int depth = 0;
+        int start = -1;
+        for (int i = 0; i < size; i++) {
+            if (types[i] == TokenType.SYMBOL.ordinal()) {
+                if (values[i] == '{') {
+                    depth++;
+                } else if (values[i] == '}') {
+                    depth--;
+                    if (depth == 1 && start >= 0) {
+                        if (count + 2 > ranges.length) {
+                            ranges = Arrays.copyOf(ranges, 2 * ranges.length);
+                        }
+                        ranges[count++] = start;
+                        ranges[count++] = i + 1;
+                        start = -1;
+                    }
+                }
+            } else if (depth == 1 && start < 0 && types[i] == TokenType.KEYWORD.ordinal() && isSubroutineKeyword(KEYWORDS[values[i]])) {
+                start = i;
+            }
+        }
+        return Arrays.copyOf(ranges, count);
+    }
+
+    /**
+     * @returns a token source for the tokens from start (inclusive) to end (exclusive).
+     */
+    public Cursor cursor(int start, int end) {
+        return new Cursor(start, end, null, null);
+    }
+
+    /**
+     * @returns a token source for all tokens, which reports the lexical errors kept by tokenize when the tokenizer
+     * would have reported them, and writes each token when it becomes the current token. Like the tokenizer, close
+     * writes the remaining tokens until the error limit is reached.
+     *
+     * @param diagnostics collects the lexical errors
+     * @param tokenOutput writer of the token file, or null if no token file should be written
+     */
+    public Cursor replay(Diagnostics diagnostics, ParseListener tokenOutput) throws IOException {
+        if (tokenOutput != null) {
+            tokenOutput.open(NonTerminal.TOKENS);
+        }
+        return new Cursor(0, size, diagnostics, tokenOutput);
+    }
+
+    private static boolean isSubroutineKeyword(Keyword keyword) {
+        return keyword == Keyword.CONSTRUCTOR || keyword == Keyword.FUNCTION || keyword == Keyword.METHOD;
+    }
+
+    private void addError(Diagnostic error) {
+        if (errors.size() == errorPositions.length) {
+            errorPositions = Arrays.copyOf(errorPositions, 2 * errors.size());
+        }
+        errorPositions[errors.size()] = errorPosition;
+        errors.add(error);
+    }
+
+    private int addText(String text) {
+        texts.add(text);
+        return texts.size() - 1;
+    }
+
+    private void add(TokenType type, int value) {
+        types[size] = (byte) type.ordinal();
+        values[size] = value;
+        size++;
+        if (size == types.length) {
+            types = Arrays.copyOf(types, 2 * size);
+            values = Arrays.copyOf(values, 2 * size);
+            lines = Arrays.copyOf(lines, 2 * size);
+            columns = Arrays.copyOf(columns, 2 * size);
+        }
+    }
+
+    /**
+     * Reads a range of the tokens. Several cursors can read the same buffer at the same time.
+     */
+    public class Cursor implements TokenSource {
+        private int next;
+        private final int end;
+        private int current;
+        private final Diagnostics diagnostics;
+        private final ParseListener tokenOutput;
+        private int nextError;
+
+        private Cursor(int start, int end, Diagnostics diagnostics, ParseListener tokenOutput) {
+            next = start;
+            this.end = end;
+            current = -1;
+            this.diagnostics = diagnostics;
+            this.tokenOutput = tokenOutput;
+            nextError = 0;
+        }
+
+        /**
+         * @returns the index of the current token in the buffer.
+         */
+        public int index() {
+            return current;
+        }
+
+        /**
+         * Continues with the token at the index, i.e. the next call of advance makes it the current token.
+         * A cursor from replay only moves forward and reports the errors and writes the tokens that it skips.
+         */
+        public void seek(int index) throws IOException {
+            if (diagnostics != null) {
+                while (next < index) {
+                    hasMoreTokens();
+                    advance();
+                }
+            }
+            next = index;
+        }
+
+        @Override
+        public boolean hasMoreTokens() {
+            reportErrors(2 * next);
+            return next < end;
+        }
+
+        @Override
+        public void advance() throws IOException {
+            current = next++;
+            reportErrors(2 * current + 1);
+            if (tokenOutput != null) {
+                tokenOutput.token(this);
+            }
+        }
+
+        @Override
+        public TokenType tokenType() {
+            return TOKEN_TYPES[types[current]];
+        }
+
+        @Override
+        public Keyword keyWord() {
+            return KEYWORDS[values[current]];
+        }
+
+        @Override
+        public char symbol() {
+            return (char) values[current];
+        }
+
+        @Override
+        public String identifier() {
+            return texts.get(values[current]);
+        }
+
+        @Override
+        public int intVal() {
+            return Math.min(JackTokenizer.intValue(texts.get(values[current])), JackTokenizer.MAX_INT_CONST);
+        }
+
+        @Override
+        public String intText() {
+            return texts.get(values[current]);
+        }
+
+        @Override
+        public String stringVal() {
+            return texts.get(values[current]);
+        }
+
+        @Override
+        public int line() {
+            return current >= 0 ? lines[current] : 0;
+        }
+
+        @Override
+        public int column() {
+            return current >= 0 ? columns[current] : 0;
+        }
+
+        /**
+         * Writes the remaining tokens of a cursor from replay until the error limit is reached, and closes the
+         * token output.
+         */
+        @Override
+        public void close() throws IOException {
+            if (tokenOutput != null) {
+                while (!diagnostics.isLimitReached() && hasMoreTokens()) {
+                    advance();
+                }
+                tokenOutput.close(NonTerminal.TOKENS);
+                tokenOutput.close();
+            }
+        }
+
+        /**
+         * Reports the kept errors up to the position to the diagnostics of a cursor from replay.
+         */
+        private void reportErrors(int position) {
+            if (diagnostics == null) {
+                return;
+            }
+            while (nextError < errors.size() && errorPositions[nextError] <= position) {
+                Diagnostic error = errors.get(nextError++);
+                diagnostics.report(error.getLine(), error.getColumn(), error.getMessage(), error.getExpected(), error.getActual());
+            }
+        }
+    }
+}
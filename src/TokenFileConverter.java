@@ -0,0 +1,49 @@
+import java.io.IOException;
+
+/**
+ * Converts token files between the xml format of nameT.xml and the binary format of nameT.jtk.
+ * The format of each file is chosen by its name, see TokenFileFormat.of.
+ */
+public class TokenFileConverter {
+
+    /**
+     * Converts the file given as first argument into the file given as second argument.
+     * Exits with status 2 if the arguments are invalid.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: TokenFileConverter input output, e.g. MainT.xml MainT.jtk");
+            System.exit(2);
+            return;
+        }
+        String inputPath = args[0];
+        String outputPath = args[1];
+        convert(inputPath, outputPath);
+        System.out.println("Converted '" + inputPath + "' to '" + outputPath + "'");
+    }
+
+    /**
+     * Reads all tokens of the input file and writes them to the output file.
+     */
+    public static void convert(String inputPath, String outputPath) throws IOException {
+        TokenSource input = TokenFileFormat.of(inputPath).createReader(inputPath);
+        try {
+            copy(input, TokenFileFormat.of(outputPath).createWriter(outputPath));
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Writes all remaining tokens of the source to the output and closes the output.
+     */
+    public static void copy(TokenSource input, ParseListener output) throws IOException {
+        output.open(NonTerminal.TOKENS);
+        while (input.hasMoreTokens()) {
+            input.advance();
+            output.token(input);
+        }
+        output.close(NonTerminal.TOKENS);
+        output.close();
+    }
+}
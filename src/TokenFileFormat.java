@@ -0,0 +1,69 @@
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formats of the token file. The token file is written to fileName + suffix.
+ */
+public enum TokenFileFormat {
+    XML("T.xml"),
+    BINARY("T.jtk");
+
+    private final String suffix;
+
+    TokenFileFormat(String suffix) {
+        this.suffix = suffix;
+    }
+
+    public String suffix() {
+        return suffix;
+    }
+
+    /**
+     * @returns the format of a token file by its name, BINARY for .jtk files and XML for all other files.
+     */
+    public static TokenFileFormat of(String path) {
+        return path.endsWith(".jtk") ? BINARY : XML;
+    }
+
+    /**
+     * Creates the token file and a listener that writes the tokens to it.
+     *
+     * @param path complete path of the token file
+     */
+    public ParseListener createWriter(String path) throws IOException {
+        if (this == BINARY) {
+            return new BinaryTokenWriter(new BufferedOutputStream(new FileOutputStream(path)));
+        }
+        return new XmlWriter(new FileWriter(path));
+    }
+
+    /**
+     * Creates a listener that writes the tokens to a stream, e.g. the response of the AnalysisServer.
+     * Xml is written in UTF-8. The stream is closed with the listener.
+     */
+    public ParseListener createWriter(OutputStream output) {
+        if (this == BINARY) {
+            return new BinaryTokenWriter(output);
+        }
+        return new XmlWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens a token file for reading.
+     *
+     * @param path complete path of the token file
+     */
+    public TokenSource createReader(String path) throws IOException {
+        if (this == BINARY) {
+            return new BinaryTokenReader(new FileInputStream(path));
+        }
+        return new XmlTokenReader(new FileReader(path));
+    }
+}
@@ -0,0 +1,105 @@
+import java.io.IOException;
+
+/**
+ * Sequence of tokens that the CompilationEngine can parse. The JackTokenizer lexes them from source code,
+ * XmlTokenReader and BinaryTokenReader read them from a token file.
+ */
+public interface TokenSource {
+
+    /**
+     * @returns true if there are more tokens.
+     */
+    boolean hasMoreTokens() throws IOException;
+
+    /**
+     * Makes the next token the current token. Should be called only if hasMoreTokens is true.
+     */
+    void advance() throws IOException;
+
+    /**
+     * @returns the type of the current token.
+     */
+    TokenType tokenType();
+
+    /**
+     * Should be called only if tokenType is KEYWORD.
+     */
+    Keyword keyWord();
+
+    /**
+     * Should be called only if tokenType is SYMBOL.
+     */
+    char symbol();
+
+    /**
+     * Should be called only if tokenType is IDENTIFIER.
+     */
+    String identifier();
+
+    /**
+     * @returns the value of the integer constant, or MAX_INT_CONST of the JackTokenizer if it is out of range.
+     * Output files are written from intText, so that such a constant keeps its text.
+     * <p>
+     * Should be called only if tokenType is INT_CONST.
+     */
+    int intVal();
+
+    /**
+     * @returns the integer constant as written in the source code, e.g. '007'.
+     * <p>
+     * Should be called only if tokenType is INT_CONST.
+     */
+    String intText();
+
+    /**
+     * @returns the string value of the current token, without the double quotes.
+     * <p>
+     * Should be called only if tokenType is STRING_CONST.
+     */
+    String stringVal();
+
+    /**
+     * @returns the line of the current token starting at 1, or 0 if the source does not know it.
+     */
+    default int line() {
+        return 0;
+    }
+
+    /**
+     * @returns the column of the current token starting at 1, or 0 if the source does not know it.
+     */
+    default int column() {
+        return 0;
+    }
+
+    /**
+     * Closes the input.
+     */
+    void close() throws IOException;
+
+    /**
+     * @returns the current token as xml element for messages, e.g. '<keyword> class </keyword>'.
+     */
+    default String toXml() {
+        String value;
+        switch (tokenType()) {
+            case KEYWORD:
+                value = keyWord().text();
+                break;
+            case SYMBOL:
+                value = XmlWriter.escape(symbol());
+                break;
+            case INT_CONST:
+                value = intText();
+                break;
+            case IDENTIFIER:
+                value = identifier();
+                break;
+            default:
+                value = stringVal();
+                break;
+        }
+        String tagName = tokenType().tagName();
+        return "<" + tagName + "> " + value + " </" + tagName + ">";
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * Lexical elements of the Jack language as returned by JackTokenizer.tokenType().
+ */
+public enum TokenType {
+    KEYWORD("keyword"),
+    SYMBOL("symbol"),
+    IDENTIFIER("identifier"),
+    INT_CONST("integerConstant"),
+    STRING_CONST("stringConstant");
+
+    private final String tagName;
+
+    TokenType(String tagName) {
+        this.tagName = tagName;
+    }
+
+    /**
+     * @returns the name of the xml element of this token type, e.g. 'integerConstant'.
+     */
+    public String tagName() {
+        return tagName;
+    }
+}
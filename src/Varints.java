@@ -0,0 +1,56 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Varints of the binary files, see BinaryTokenWriter, BinaryTreeWriter and JackIndex.
+ * Varints store 7 bits per byte, lowest bits first, the highest bit is set in all bytes except the last one.
+ */
+class Varints {
+    /**
+     * Largest number of bytes of a varint.
+     */
+    static final int MAX_LENGTH = 5;
+
+    private Varints() {
+    }
+
+    /**
+     * Writes the value as varint into the array, which must have MAX_LENGTH bytes from the position on.
+     *
+     * @returns the position after the varint.
+     */
+    static int write(byte[] bytes, int position, int value) {
+        while ((value & ~0x7f) != 0) {
+            bytes[position++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    static void write(ByteArrayOutputStream output, int value) {
+        byte[] bytes = new byte[MAX_LENGTH];
+        output.write(bytes, 0, write(bytes, 0, value));
+    }
+
+    /**
+     * Reads a varint at position[0] and moves the position behind it.
+     *
+     * @throws IOException if the data ends within the varint or the varint is longer than MAX_LENGTH bytes
+     */
+    static int read(byte[] data, int[] position) throws IOException {
+        int start = position[0];
+        int value = 0;
+        for (int shift = 0; shift < 7 * MAX_LENGTH; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new IOException("Truncated varint at byte " + start);
+            }
+            byte b = data[position[0]++];
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid varint at byte " + start);
+    }
+}
@@ -0,0 +1,143 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads a token file in the xml format of nameT.xml, one token per line, e.g. '<keyword> class </keyword>'.
+ * The lines may be indented. The lines '<tokens>' and '</tokens>' are skipped.
+ */
+public class XmlTokenReader implements TokenSource {
+    private final BufferedReader input;
+    private String nextLine;
+    private int lineNumber;
+
+    private TokenType currentType;
+    private Keyword currentKeyword;
+    private String currentToken;
+    private int currentIntValue;
+
+    /**
+     * @param input nameT.xml file
+     */
+    public XmlTokenReader(Reader input) {
+        this.input = new BufferedReader(input, 1 << 16);
+        nextLine = null;
+        lineNumber = 0;
+        currentIntValue = 0;
+    }
+
+    @Override
+    public boolean hasMoreTokens() throws IOException {
+        while (nextLine == null) {
+            String line = input.readLine();
+            if (line == null) {
+                return false;
+            }
+            lineNumber++;
+            line = line.trim();
+            if (!line.isEmpty() && !line.equals("<tokens>") && !line.equals("</tokens>")) {
+                nextLine = line;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void advance() throws IOException {
+        hasMoreTokens();
+        String line = nextLine;
+        nextLine = null;
+
+        int tagEnd = line.indexOf('>');
+        int valueEnd = line.lastIndexOf(" </");
+        if (!line.startsWith("<") || tagEnd < 0 || valueEnd < tagEnd + 1) {
+            throw new IOException("Invalid token in line " + lineNumber + ": " + line);
+        }
+        String tagName = line.substring(1, tagEnd);
+        currentType = null;
+        for (TokenType type : TokenType.values()) {
+            if (type.tagName().equals(tagName)) {
+                currentType = type;
+            }
+        }
+        if (currentType == null) {
+            throw new IOException("Unknown token type in line " + lineNumber + ": " + tagName);
+        }
+
+        currentToken = valueEnd > tagEnd + 1 ? line.substring(tagEnd + 2, valueEnd) : "";
+        if (currentType == TokenType.KEYWORD) {
+            currentKeyword = Keyword.fromText(currentToken);
+            if (currentKeyword == null) {
+                throw new IOException("Unknown keyword in line " + lineNumber + ": " + currentToken);
+            }
+        } else if (currentType == TokenType.SYMBOL) {
+            currentToken = unescape(currentToken);
+            if (currentToken.length() != 1) {
+                throw new IOException("Invalid symbol in line " + lineNumber + ": " + currentToken);
+            }
+        } else if (currentType == TokenType.INT_CONST) {
+            if (!JackTokenizer.isIntConst(currentToken)) {
+                throw new IOException("Invalid integer constant in line " + lineNumber + ": " + currentToken);
+            }
+            currentIntValue = Math.min(JackTokenizer.intValue(currentToken), JackTokenizer.MAX_INT_CONST);
+        }
+    }
+
+    @Override
+    public TokenType tokenType() {
+        return currentType;
+    }
+
+    @Override
+    public Keyword keyWord() {
+        return currentKeyword;
+    }
+
+    @Override
+    public char symbol() {
+        return currentToken.charAt(0);
+    }
+
+    @Override
+    public String identifier() {
+        return currentToken;
+    }
+
+    @Override
+    public int intVal() {
+        return currentIntValue;
+    }
+
+    @Override
+    public String intText() {
+        return currentToken;
+    }
+
+    @Override
+    public String stringVal() {
+        return currentToken;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    /**
+     * @returns the symbol for its xml value, the reverse of XmlWriter.escape.
+     */
+    private static String unescape(String value) {
+        switch (value) {
+            case "&lt;":
+                return "<";
+            case "&gt;":
+                return ">";
+            case "&quot;":
+                return "\"";
+            case "&amp;":
+                return "&";
+            default:
+                return value;
+        }
+    }
+}
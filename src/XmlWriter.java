@@ -0,0 +1,193 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Writes tokens and rules as xml elements, one per line, for the token file and the parsing tree.
+ * The output is collected in a large buffer that is written to the underlying writer only when it is full.
+ * Open and close tags of all token types, keywords, symbols and rules are created once.
+ * <p>
+ * If indentation is enabled, every line is indented by two spaces per open rule, like the files of the course.
+ */
+public class XmlWriter implements ParseListener {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final char[][] TOKEN_OPEN_TAGS = new char[TokenType.values().length][];
+    private static final char[][] TOKEN_CLOSE_TAGS = new char[TokenType.values().length][];
+    private static final char[][] KEYWORD_ELEMENTS = new char[Keyword.values().length][];
+    private static final char[][] SYMBOL_ELEMENTS = new char[128][];
+    private static final char[][] RULE_OPEN_TAGS = new char[NonTerminal.values().length][];
+    private static final char[][] RULE_CLOSE_TAGS = new char[NonTerminal.values().length][];
+
+    static {
+        for (TokenType type : TokenType.values()) {
+            TOKEN_OPEN_TAGS[type.ordinal()] = ("<" + type.tagName() + "> ").toCharArray();
+            TOKEN_CLOSE_TAGS[type.ordinal()] = (" </" + type.tagName() + ">\n").toCharArray();
+        }
+        for (Keyword keyword : Keyword.values()) {
+            KEYWORD_ELEMENTS[keyword.ordinal()] = ("<keyword> " + keyword.text() + " </keyword>\n").toCharArray();
+        }
+        for (char c = 0; c < SYMBOL_ELEMENTS.length; c++) {
+            SYMBOL_ELEMENTS[c] = ("<symbol> " + escape(c) + " </symbol>\n").toCharArray();
+        }
+        for (NonTerminal rule : NonTerminal.values()) {
+            RULE_OPEN_TAGS[rule.ordinal()] = ("<" + rule.tagName() + ">\n").toCharArray();
+            RULE_CLOSE_TAGS[rule.ordinal()] = ("</" + rule.tagName() + ">\n").toCharArray();
+        }
+    }
+
+    private final Writer output;
+    private final boolean indent;
+    private final char[] buffer;
+    private int size;
+    private int depth;
+
+    /**
+     * @param output writer of the xml file
+     */
+    public XmlWriter(Writer output) {
+        this(output, false);
+    }
+
+    /**
+     * @param output writer of the xml file
+     * @param indent true if the lines should be indented by the depth of the rules
+     */
+    public XmlWriter(Writer output, boolean indent) {
+        this.output = output;
+        this.indent = indent;
+        buffer = new char[BUFFER_SIZE];
+        size = 0;
+        depth = 0;
+    }
+
+    /**
+     * Writes the open tag of a rule, e.g. '<class>'.
+     */
+    @Override
+    public void open(NonTerminal rule) throws IOException {
+        writeLine(RULE_OPEN_TAGS[rule.ordinal()]);
+        depth++;
+    }
+
+    /**
+     * Writes the close tag of a rule, e.g. '</class>'.
+     */
+    @Override
+    public void close(NonTerminal rule) throws IOException {
+        depth--;
+        writeLine(RULE_CLOSE_TAGS[rule.ordinal()]);
+    }
+
+    /**
+     * Writes a keyword token.
+     */
+    @Override
+    public void keyword(Keyword keyword) throws IOException {
+        writeLine(KEYWORD_ELEMENTS[keyword.ordinal()]);
+    }
+
+    /**
+     * Writes a symbol token. <, >, " and & are escaped.
+     */
+    @Override
+    public void symbol(char symbol) throws IOException {
+        if (symbol < SYMBOL_ELEMENTS.length) {
+            writeLine(SYMBOL_ELEMENTS[symbol]);
+        } else {
+            token(TokenType.SYMBOL, String.valueOf(symbol));
+        }
+    }
+
+    /**
+     * Writes a token of any type with the given text. The text is written as is.
+     */
+    @Override
+    public void token(TokenType type, String text) throws IOException {
+        writeIndentation();
+        write(TOKEN_OPEN_TAGS[type.ordinal()]);
+        if (text.length() > buffer.length) {
+            writeBuffer();
+            output.write(text);
+        } else {
+            ensureCapacity(text.length());
+            text.getChars(0, text.length(), buffer, size);
+            size += text.length();
+        }
+        write(TOKEN_CLOSE_TAGS[type.ordinal()]);
+    }
+
+    /**
+     * Writes the buffer to the underlying writer.
+     */
+    public void flush() throws IOException {
+        writeBuffer();
+        output.flush();
+    }
+
+    /**
+     * Writes the buffer to the underlying writer and closes it.
+     */
+    @Override
+    public void close() throws IOException {
+        writeBuffer();
+        output.close();
+    }
+
+    /**
+     * @returns the value of a symbol in xml. <, >, " and & have a special meaning in xml.
+     */
+    static String escape(char symbol) {
+        switch (symbol) {
+            case '<':
+                return "&lt;";
+            case '>':
+                return "&gt;";
+            case '"':
+                return "&quot;";
+            case '&':
+                return "&amp;";
+            default:
+                return String.valueOf(symbol);
+        }
+    }
+
+    private void writeLine(char[] line) throws IOException {
+        writeIndentation();
+        write(line);
+    }
+
+    private void writeIndentation() throws IOException {
+        if (!indent) {
+            return;
+        }
+        int spaces = 2 * depth;
+        while (spaces > 0) {
+            ensureCapacity(1);
+            int length = Math.min(spaces, buffer.length - size);
+            Arrays.fill(buffer, size, size + length, ' ');
+            size += length;
+            spaces -= length;
+        }
+    }
+
+    private void write(char[] chars) throws IOException {
+        ensureCapacity(chars.length);
+        System.arraycopy(chars, 0, buffer, size, chars.length);
+        size += chars.length;
+    }
+
+    /**
+     * Writes the buffer to the underlying writer if the given number of characters does not fit into it anymore.
+     */
+    private void ensureCapacity(int length) throws IOException {
+        if (size + length > buffer.length) {
+            writeBuffer();
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        output.write(buffer, 0, size);
+        size = 0;
+    }
+}